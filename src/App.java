@@ -1,15 +1,58 @@
+import java.io.IOException;
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+
 /**
  * Main application entry point for the Parking Lot Status Check application.
  * This class serves as the launcher for the Swing-based parking lot management system.
+ * It can also run the application as a replication leader, as a headless follower, or as
+ * a headless command console (see {@link HeadlessConsole}) reading a script or standard input:
+ * <pre>
+ *   java -cp bin App leader &lt;port&gt;
+ *   java -cp bin App follower &lt;host&gt; &lt;port&gt; [promotePort]
+ *   java -cp bin App cli [script]
+ * </pre>
+ * The headless modes never load a Swing class, so AWT is not initialized.
  */
 public class App {
     /**
      * Main method that launches the parking lot status check application.
-     * Delegates to the UserInterface main method to start the GUI application.
+     * Delegates to the UserInterface main method to start the GUI application,
+     * unless a replication mode or the command console is requested.
      * @param args command line arguments (passed through to UserInterface)
+     * @throws IOException if a replication socket cannot be opened or a script cannot be read
+     * @throws InterruptedException if interrupted while promoting a follower
      */
-    public static void main(String[] args) {
-        // Launch the parking lot status check application
-        UserInterface.main(args);
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 2 && args[0].equals("leader")) {
+            runLeader(Integer.parseInt(args[1]));
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("follower")) {
+            int port = Integer.parseInt(args[2]);
+            HeadlessConsole.runFollower(args[1], port, args.length == 4 ? Integer.parseInt(args[3]) : port);
+        } else if (args.length >= 1 && args[0].equals("cli")) {
+            HeadlessConsole.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            // Launch the parking lot status check application
+            UserInterface.main(args);
+        }
+    }
+
+    /**
+     * Launches the GUI on the sample data and replicates every change to followers.
+     * @param port the local port followers connect to
+     */
+    private static void runLeader(int port) throws IOException {
+        DynamicPricingEngine pricing = new DynamicPricingEngine();
+        ParkingLotManager manager = ExampleData.createSampleData(pricing);
+        pricing.start();
+        ReplicationLeader leader = new ReplicationLeader(manager, port);
+        leader.start();
+        System.out.println("Replication leader listening on port " + leader.getPort());
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                new UserInterface(manager).setVisible(true);
+            }
+        });
     }
 }
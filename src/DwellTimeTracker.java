@@ -0,0 +1,69 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates completed parking sessions into streaming dwell-time statistics.
+ * Every vacate adds the session's duration, in seconds, to a QuantileSketch for its lot, so
+ * count, mean and percentiles are available live in constant memory without storing
+ * individual sessions. Vacates in different lots update different sketches and never
+ * contend; fleet-wide statistics are merged from the lot sketches when they are read.
+ */
+public class DwellTimeTracker implements ParkingLotListener {
+    private final Map<ParkingLot, QuantileSketch> lotStats = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the dwell-time statistics of a single lot.
+     * @param lot the parking lot
+     * @return a snapshot of the lot's dwell times in seconds (empty if the lot is not tracked)
+     */
+    public QuantileSketch getLotStats(ParkingLot lot) {
+        QuantileSketch stats = lotStats.get(lot);
+        return stats == null ? new QuantileSketch() : stats.copy();
+    }
+
+    /**
+     * Gets the dwell-time statistics across all tracked lots.
+     * @return a new sketch merging the statistics of all lots
+     */
+    public QuantileSketch getFleetStats() {
+        return getMergedStats(lotStats.keySet());
+    }
+
+    /**
+     * Gets the combined dwell-time statistics of a group of lots.
+     * @param lots the lots to combine
+     * @return a new sketch merging the statistics of the given lots
+     */
+    public QuantileSketch getMergedStats(Collection<ParkingLot> lots) {
+        QuantileSketch merged = new QuantileSketch();
+        for (ParkingLot lot : lots) {
+            QuantileSketch stats = lotStats.get(lot);
+            if (stats != null) {
+                merged.merge(stats);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        // Sessions are only recorded once they are complete
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) {
+            return;
+        }
+        long seconds = Duration.between(startTime, endTime).getSeconds();
+        lotStats.computeIfAbsent(lot, key -> new QuantileSketch()).add(seconds);
+    }
+
+    @Override
+    public void lotAdded(ParkingLot lot) {
+        lotStats.putIfAbsent(lot, new QuantileSketch());
+    }
+}
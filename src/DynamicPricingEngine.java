@@ -0,0 +1,149 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes occupancy- and time-dependent hourly rates for parking lots.
+ * Each lot with a PricingPolicy has its effective rate precomputed and published through
+ * {@link ParkingLot#setCurrentHourlyRate(double)}, so quoting a price is a single read.
+ * On every occupy/vacate the engine only compares the lot's occupied count against the
+ * bounds of its current tier, and recomputes the rate when a bound is crossed.
+ * Once started, rates of lots with time windows are also republished every hour.
+ */
+public class DynamicPricingEngine implements ParkingLotListener {
+    private final Map<ParkingLot, LotPricing> pricing = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Pricing state of a single lot, guarded by the lot's lock.
+     */
+    private static class LotPricing {
+        final PricingPolicy policy;
+        int tier;
+        int tierStart;
+        int nextTierStart;
+
+        LotPricing(PricingPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    /**
+     * Assigns a pricing policy to a lot and publishes its effective rate.
+     * Call it again after changing the policy to publish the lot's new rate.
+     * @param lot the parking lot
+     * @param policy the policy to apply, or null to revert to the base rate
+     */
+    public void setPolicy(ParkingLot lot, PricingPolicy policy) {
+        synchronized (lot) {
+            if (policy == null) {
+                pricing.remove(lot);
+                lot.setCurrentHourlyRate(lot.getHourlyRate());
+                return;
+            }
+            LotPricing state = new LotPricing(policy);
+            pricing.put(lot, state);
+            publish(lot, state);
+        }
+    }
+
+    /**
+     * Quotes the hourly rate currently charged in a lot.
+     * @param lot the parking lot
+     * @return the effective hourly rate
+     */
+    public double quote(ParkingLot lot) {
+        return lot.getCurrentHourlyRate();
+    }
+
+    /**
+     * Starts republishing rates of lots with time windows at every full hour.
+     * Does nothing if the engine is already running.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dynamic-pricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.truncatedTo(ChronoUnit.HOURS).plusHours(1)).toMillis();
+        scheduler.scheduleAtFixedRate(this::republishTimeWindows, delay, TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the hourly republishing.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        checkTier(lot);
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        checkTier(lot);
+    }
+
+    /**
+     * Republishes a lot's rate if its occupancy left the current tier. Called under the lot's lock.
+     */
+    private void checkTier(ParkingLot lot) {
+        LotPricing state = pricing.get(lot);
+        if (state == null) {
+            return;
+        }
+        int occupied = lot.getOccupiedSpots();
+        if (occupied < state.tierStart || occupied >= state.nextTierStart) {
+            publish(lot, state);
+        }
+    }
+
+    /**
+     * Recomputes the tier bounds and effective rate of a lot. Called under the lot's lock.
+     */
+    private void publish(ParkingLot lot, LotPricing state) {
+        PricingPolicy policy = state.policy;
+        int total = lot.getTotalSpots();
+        int occupied = lot.getOccupiedSpots();
+        int tier = -1;
+        while (tier + 1 < policy.getTierCount() && occupied >= policy.getTierStart(tier + 1, total)) {
+            tier++;
+        }
+        state.tier = tier;
+        state.tierStart = tier < 0 ? Integer.MIN_VALUE : policy.getTierStart(tier, total);
+        state.nextTierStart = tier + 1 < policy.getTierCount() ? policy.getTierStart(tier + 1, total) : Integer.MAX_VALUE;
+        lot.setCurrentHourlyRate(policy.getRate(lot.getHourlyRate(), tier, LocalDateTime.now().getHour()));
+    }
+
+    /**
+     * Republishes the rates of all lots whose policy depends on the time of day.
+     */
+    private void republishTimeWindows() {
+        for (Map.Entry<ParkingLot, LotPricing> entry : pricing.entrySet()) {
+            if (entry.getValue().policy.hasTimeWindows()) {
+                ParkingLot lot = entry.getKey();
+                synchronized (lot) {
+                    LotPricing state = pricing.get(lot);
+                    if (state != null) {
+                        publish(lot, state);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures how responsive the Swing Event Dispatch Thread is.
+ * A background thread periodically posts a probe to the EDT and records how long it waited
+ * in the event queue; the GUI additionally records how long its own EDT work took.
+ * Both are summarized in microseconds so they can be checked against a frame budget.
+ */
+public class EdtLatencyMonitor {
+    /** The EDT latency target in milliseconds, one frame at 60 Hz. */
+    public static final long TARGET_MILLIS = 16;
+
+    private final QuantileSketch queueLatency = new QuantileSketch();
+    private final QuantileSketch workTime = new QuantileSketch();
+    private ScheduledExecutorService prober;
+
+    /**
+     * Starts probing the event queue.
+     * @param periodMillis the interval between probes in milliseconds
+     */
+    public synchronized void start(long periodMillis) {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edt-latency-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleAtFixedRate(this::probe, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops probing the event queue.
+     */
+    public synchronized void stop() {
+        if (prober != null) {
+            prober.shutdownNow();
+            prober = null;
+        }
+    }
+
+    /**
+     * Records the duration of a piece of work performed on the EDT.
+     * @param startNanos the System.nanoTime() at which the work started
+     */
+    public void recordWork(long startNanos) {
+        workTime.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Gets the time probes spent waiting for the EDT, in microseconds.
+     * @return a copy of the queue latency summary
+     */
+    public QuantileSketch getQueueLatency() {
+        return queueLatency.copy();
+    }
+
+    /**
+     * Gets the duration of recorded EDT work, in microseconds.
+     * @return a copy of the work time summary
+     */
+    public QuantileSketch getWorkTime() {
+        return workTime.copy();
+    }
+
+    /**
+     * Checks whether the 99th percentile of both queue latency and recorded work is within the target.
+     * @return true if the EDT meets the latency target
+     */
+    public boolean isWithinTarget() {
+        long target = TimeUnit.MILLISECONDS.toMicros(TARGET_MILLIS);
+        return queueLatency.getQuantile(0.99) <= target && workTime.getQuantile(0.99) <= target;
+    }
+
+    /**
+     * Formats a short summary of the measurements for display.
+     * @return the summary text
+     */
+    public String getSummary() {
+        return String.format("EDT p99: queue %.1f ms, updates %.1f ms (target %d ms)",
+            queueLatency.getQuantile(0.99) / 1000.0, workTime.getQuantile(0.99) / 1000.0, TARGET_MILLIS);
+    }
+
+    private void probe() {
+        long posted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> queueLatency.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - posted)));
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/**
+ * Remembers recently seen event IDs in constant memory, to drop retransmitted events.
+ * IDs are kept in a ring of time buckets, each a fixed-size open-addressing hash set of
+ * longs. A new bucket is started every bucket period, reusing the storage of the oldest one,
+ * so an ID is remembered for at least (buckets - 1) periods. If events arrive faster than a
+ * bucket can hold, the next bucket is started early: memory never grows, and the window
+ * only shortens while the rate stays that high.
+ */
+public class EventDedupWindow {
+    private static final long EMPTY = 0;
+
+    private final long bucketMillis;
+    private final int capacityPerBucket;
+    private final long[][] tables;
+    private final int[] sizes;
+    private final boolean[] containsEmptyId;
+    private final int mask;
+    private int current;
+    private long currentPeriod;
+
+    /**
+     * Constructs a new window.
+     * @param buckets the number of time buckets, at least 2
+     * @param bucketMillis the time covered by each bucket in milliseconds
+     * @param capacityPerBucket the number of IDs each bucket can hold
+     */
+    public EventDedupWindow(int buckets, long bucketMillis, int capacityPerBucket) {
+        if (buckets < 2 || bucketMillis <= 0 || capacityPerBucket <= 0) {
+            throw new IllegalArgumentException("Invalid dedup window configuration");
+        }
+        this.bucketMillis = bucketMillis;
+        this.capacityPerBucket = capacityPerBucket;
+        // Keep the load factor at or below one half
+        int tableSize = Integer.highestOneBit(Math.max(2, capacityPerBucket * 2 - 1)) << 1;
+        this.tables = new long[buckets][tableSize];
+        this.sizes = new int[buckets];
+        this.containsEmptyId = new boolean[buckets];
+        this.mask = tableSize - 1;
+        this.currentPeriod = System.currentTimeMillis() / bucketMillis;
+    }
+
+    /**
+     * Gets the time for which an ID is at least remembered while the bucket capacity suffices.
+     * @return the guaranteed window in milliseconds
+     */
+    public long getWindowMillis() {
+        return (tables.length - 1) * bucketMillis;
+    }
+
+    /**
+     * Records an event ID.
+     * @param eventId the event ID
+     * @return true if the ID was not seen within the window, false if it is a duplicate
+     */
+    public synchronized boolean markSeen(long eventId) {
+        advance(System.currentTimeMillis() / bucketMillis);
+        for (int i = 0; i < tables.length; i++) {
+            if (contains(i, eventId)) {
+                return false;
+            }
+        }
+        if (sizes[current] >= capacityPerBucket) {
+            rotate();
+        }
+        add(current, eventId);
+        return true;
+    }
+
+    /**
+     * Starts new buckets for the periods that elapsed since the current one started.
+     */
+    private void advance(long period) {
+        long elapsed = period - currentPeriod;
+        for (long i = 0; i < Math.min(elapsed, tables.length); i++) {
+            rotate();
+        }
+        if (elapsed > 0) {
+            currentPeriod = period;
+        }
+    }
+
+    /**
+     * Moves to the next bucket, forgetting the IDs of the oldest one.
+     */
+    private void rotate() {
+        current = (current + 1) % tables.length;
+        if (sizes[current] > 0) {
+            Arrays.fill(tables[current], EMPTY);
+        }
+        sizes[current] = 0;
+        containsEmptyId[current] = false;
+    }
+
+    private boolean contains(int bucket, long eventId) {
+        if (eventId == EMPTY) {
+            return containsEmptyId[bucket];
+        }
+        long[] table = tables[bucket];
+        for (int slot = slot(eventId); ; slot = (slot + 1) & mask) {
+            long value = table[slot];
+            if (value == eventId) {
+                return true;
+            }
+            if (value == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    private void add(int bucket, long eventId) {
+        sizes[bucket]++;
+        if (eventId == EMPTY) {
+            containsEmptyId[bucket] = true;
+            return;
+        }
+        long[] table = tables[bucket];
+        int slot = slot(eventId);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = eventId;
+    }
+
+    private int slot(long eventId) {
+        long hash = eventId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -5,18 +5,35 @@
  */
 public class ExampleData {
     
+    /**
+     * Creates a ParkingLotManager with sample parking lots and pre-occupied spots.
+     * Rates follow occupancy, but time-of-day rates are not republished as the hours pass,
+     * since no pricing engine is running. Use {@link #createSampleData(DynamicPricingEngine)}
+     * and start the engine for that.
+     * 
+     * @return a ParkingLotManager containing the four sample parking lots
+     */
+    public static ParkingLotManager createSampleData() {
+        return createSampleData(new DynamicPricingEngine());
+    }
+
     /**
      * Creates a ParkingLotManager with sample parking lots and pre-occupied spots.
      * This method sets up four different parking lots with varying sizes, rates, and
      * some spots already occupied to simulate a realistic scenario.
+     * Rates rise by 25% at half occupancy and by 50% at 80% occupancy, and the airport
+     * charges 20% more during the morning and evening peaks.
+     * The lots are priced by the given engine, which is not started here; the caller
+     * starts and stops it.
      * 
+     * @param pricing the engine to price the sample lots with
      * @return a ParkingLotManager containing four sample parking lots:
      *         - Downtown Mall (4x6 grid, $3.50/hour)
      *         - Airport Terminal (3x8 grid, $5.00/hour) 
      *         - University Campus (5x5 grid, $2.00/hour)
      *         - City Hospital (3x7 grid, $4.25/hour)
      */
-    public static ParkingLotManager createSampleData() {
+    public static ParkingLotManager createSampleData(DynamicPricingEngine pricing) {
         ParkingLotManager manager = new ParkingLotManager();
         
         // Create Downtown Mall Parking - 4 rows x 6 columns, $3.50/hour
@@ -61,6 +78,21 @@ public class ExampleData {
         manager.addParkingLot(universityCampus);
         manager.addParkingLot(hospitalParking);
         
+        // Raise rates as lots fill up, and at the airport during peak travel hours
+        manager.addParkingLotListener(pricing);
+        PricingPolicy standardPricing = new PricingPolicy()
+            .addOccupancyTier(0.5, 1.25)
+            .addOccupancyTier(0.8, 1.5);
+        PricingPolicy airportPricing = new PricingPolicy()
+            .addOccupancyTier(0.5, 1.25)
+            .addOccupancyTier(0.8, 1.5)
+            .addTimeWindow(6, 10, 1.2)
+            .addTimeWindow(16, 20, 1.2);
+        pricing.setPolicy(downtownMall, standardPricing);
+        pricing.setPolicy(airportTerminal, airportPricing);
+        pricing.setPolicy(universityCampus, standardPricing);
+        pricing.setPolicy(hospitalParking, standardPricing);
+        
         return manager;
     }
     
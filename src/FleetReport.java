@@ -0,0 +1,208 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fleet-wide aggregates computed by a {@link FleetReporter}.
+ * Every lot contributes a state it actually had at one point during the report, so counts,
+ * dwell times and revenue of a lot always agree with each other.
+ */
+public class FleetReport {
+    private final LocalDateTime generatedAt;
+    private final int lotCount;
+    private final long totalSpots;
+    private final long occupiedSpots;
+    private final long totalDwellSeconds;
+    private final double projectedRevenue;
+    private final double hourlyRevenue;
+    private final List<LotOccupancy> fullestLots;
+    private final int lockedLots;
+
+    /**
+     * The occupancy of a single lot as seen by the report.
+     */
+    public static class LotOccupancy {
+        private final String name;
+        private final int occupiedSpots;
+        private final int totalSpots;
+
+        /**
+         * Constructs a new LotOccupancy.
+         * @param name the lot name
+         * @param occupiedSpots the number of occupied spots
+         * @param totalSpots the number of spots
+         */
+        public LotOccupancy(String name, int occupiedSpots, int totalSpots) {
+            this.name = name;
+            this.occupiedSpots = occupiedSpots;
+            this.totalSpots = totalSpots;
+        }
+
+        /**
+         * Gets the lot name.
+         * @return the lot name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of occupied spots.
+         * @return the occupied spot count
+         */
+        public int getOccupiedSpots() {
+            return occupiedSpots;
+        }
+
+        /**
+         * Gets the number of spots in the lot.
+         * @return the total spot count
+         */
+        public int getTotalSpots() {
+            return totalSpots;
+        }
+
+        /**
+         * Gets the share of occupied spots.
+         * @return the occupancy ratio between 0 and 1
+         */
+        public double getOccupancyRatio() {
+            return totalSpots == 0 ? 0 : (double) occupiedSpots / totalSpots;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d/%d (%.1f%%)", name, occupiedSpots, totalSpots, getOccupancyRatio() * 100);
+        }
+    }
+
+    /**
+     * Constructs a new FleetReport.
+     * @param generatedAt the time the report was started
+     * @param lotCount the number of lots covered
+     * @param totalSpots the number of spots in all lots
+     * @param occupiedSpots the number of occupied spots in all lots
+     * @param totalDwellSeconds the time all current occupants have been parked so far, in seconds
+     * @param projectedRevenue what all current occupants would pay if they left now
+     * @param hourlyRevenue the revenue per hour at the current occupancy and rates
+     * @param fullestLots the lots with the highest occupancy ratio, fullest first
+     * @param lockedLots the number of lots that had to be read under their lock
+     */
+    public FleetReport(LocalDateTime generatedAt, int lotCount, long totalSpots, long occupiedSpots,
+                       long totalDwellSeconds, double projectedRevenue, double hourlyRevenue,
+                       List<LotOccupancy> fullestLots, int lockedLots) {
+        this.generatedAt = generatedAt;
+        this.lotCount = lotCount;
+        this.totalSpots = totalSpots;
+        this.occupiedSpots = occupiedSpots;
+        this.totalDwellSeconds = totalDwellSeconds;
+        this.projectedRevenue = projectedRevenue;
+        this.hourlyRevenue = hourlyRevenue;
+        this.fullestLots = Collections.unmodifiableList(fullestLots);
+        this.lockedLots = lockedLots;
+    }
+
+    /**
+     * Gets the time the report was started.
+     * @return the report time
+     */
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    /**
+     * Gets the number of lots covered by the report.
+     * @return the lot count
+     */
+    public int getLotCount() {
+        return lotCount;
+    }
+
+    /**
+     * Gets the number of spots in all lots.
+     * @return the total spot count
+     */
+    public long getTotalSpots() {
+        return totalSpots;
+    }
+
+    /**
+     * Gets the number of occupied spots in all lots.
+     * @return the occupied spot count
+     */
+    public long getOccupiedSpots() {
+        return occupiedSpots;
+    }
+
+    /**
+     * Gets the number of available spots in all lots.
+     * @return the available spot count
+     */
+    public long getAvailableSpots() {
+        return totalSpots - occupiedSpots;
+    }
+
+    /**
+     * Gets the share of occupied spots across all lots.
+     * @return the occupancy ratio between 0 and 1
+     */
+    public double getOccupancyRatio() {
+        return totalSpots == 0 ? 0 : (double) occupiedSpots / totalSpots;
+    }
+
+    /**
+     * Gets how long the current occupants have been parked on average.
+     * @return the average dwell time so far, or zero if no spot is occupied
+     */
+    public Duration getAverageDwell() {
+        return occupiedSpots == 0 ? Duration.ZERO : Duration.ofSeconds(totalDwellSeconds / occupiedSpots);
+    }
+
+    /**
+     * Gets what all current occupants would pay at the current rates if they left now.
+     * @return the projected revenue
+     */
+    public double getProjectedRevenue() {
+        return projectedRevenue;
+    }
+
+    /**
+     * Gets the revenue earned per hour at the current occupancy and rates.
+     * @return the hourly revenue
+     */
+    public double getHourlyRevenue() {
+        return hourlyRevenue;
+    }
+
+    /**
+     * Gets the lots with the highest occupancy ratio.
+     * @return the fullest lots, fullest first
+     */
+    public List<LotOccupancy> getFullestLots() {
+        return fullestLots;
+    }
+
+    /**
+     * Gets the number of lots that changed during their optimistic scan and were read again
+     * under their lock.
+     * @return the locked lot count
+     */
+    public int getLockedLots() {
+        return lockedLots;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Fleet report at %s: %d lots, %d of %d spots available (%.1f%% occupied)%n",
+            generatedAt, lotCount, getAvailableSpots(), totalSpots, getOccupancyRatio() * 100));
+        text.append(String.format("Average dwell %d min, projected revenue $%.2f, $%.2f per hour%n",
+            getAverageDwell().toMinutes(), projectedRevenue, hourlyRevenue));
+        text.append("Fullest lots:");
+        for (LotOccupancy lot : fullestLots) {
+            text.append(String.format("%n  %s", lot));
+        }
+        return text.toString();
+    }
+}
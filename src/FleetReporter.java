@@ -0,0 +1,278 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes {@link FleetReport}s in parallel on a fork/join pool.
+ * The lot list is split into ranges of lots, and lots with many spots are further split into
+ * ranges of rows, so both many small lots and a few huge ones spread across all cores.
+ *
+ * Lots are scanned optimistically without holding their lock. The lock is only taken briefly
+ * to start and to validate the scan, so changes that callers make as a unit under the lot's
+ * lock, such as replacing a vehicle, are never seen half-done. A lot whose grid changed during
+ * its scan is scanned again, and after repeated conflicts it is read while holding its lock,
+ * which blocks writers to that lot for the duration of the scan. Locks are never held while
+ * waiting for other tasks.
+ */
+public class FleetReporter {
+    private static final int LOTS_PER_TASK = 32;
+    private static final int SPOTS_PER_TASK = 16 * 1024;
+    private static final int OPTIMISTIC_ATTEMPTS = 2;
+    private static final Comparator<FleetReport.LotOccupancy> BY_OCCUPANCY =
+        Comparator.comparingDouble(FleetReport.LotOccupancy::getOccupancyRatio)
+            .thenComparingInt(FleetReport.LotOccupancy::getOccupiedSpots);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Aggregates of one lot or a range of lots.
+     */
+    private static class LotTotals {
+        long totalSpots;
+        long occupiedSpots;
+        long dwellSeconds;
+        double projectedRevenue;
+        double hourlyRevenue;
+        int lockedLots;
+
+        void add(LotTotals other) {
+            totalSpots += other.totalSpots;
+            occupiedSpots += other.occupiedSpots;
+            dwellSeconds += other.dwellSeconds;
+            projectedRevenue += other.projectedRevenue;
+            hourlyRevenue += other.hourlyRevenue;
+            lockedLots += other.lockedLots;
+        }
+    }
+
+    /**
+     * Occupied spots and their dwell time in a range of rows.
+     */
+    private static class SpotTotals {
+        long occupiedSpots;
+        long dwellSeconds;
+
+        void add(SpotTotals other) {
+            occupiedSpots += other.occupiedSpots;
+            dwellSeconds += other.dwellSeconds;
+        }
+    }
+
+    /**
+     * Constructs a reporter using one worker thread per available processor.
+     */
+    public FleetReporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a reporter with the given number of worker threads.
+     * @param parallelism the number of worker threads
+     */
+    public FleetReporter(int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("fleet-report-" + threadNumber.getAndIncrement());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Reports on all lots of a manager.
+     * @param manager the manager whose lots to report on
+     * @param topN the number of fullest lots to list
+     * @return the report
+     * @throws IllegalArgumentException if topN is negative
+     */
+    public FleetReport report(ParkingLotManager manager, int topN) {
+        return report(manager.getAllParkingLots(), topN);
+    }
+
+    /**
+     * Reports on a group of lots. Lots whose grid has been evicted are only loaded if they
+     * have occupied spots.
+     * @param lots the lots to report on
+     * @param topN the number of fullest lots to list
+     * @return the report
+     * @throws IllegalArgumentException if topN is negative
+     */
+    public FleetReport report(Collection<ParkingLot> lots, int topN) {
+        if (topN < 0) {
+            throw new IllegalArgumentException("topN must not be negative: " + topN);
+        }
+        ParkingLot[] lotArray = lots.toArray(new ParkingLot[0]);
+        FleetReport.LotOccupancy[] occupancies = new FleetReport.LotOccupancy[lotArray.length];
+        LocalDateTime now = LocalDateTime.now();
+        LotTotals totals = pool.invoke(new LotRangeTask(lotArray, occupancies,
+            now.toEpochSecond(ZoneOffset.UTC), 0, lotArray.length));
+
+        // Keep the N fullest lots in a min-heap, evicting the emptiest whenever it grows past N
+        PriorityQueue<FleetReport.LotOccupancy> fullest = new PriorityQueue<>(Math.max(1, topN + 1), BY_OCCUPANCY);
+        for (FleetReport.LotOccupancy occupancy : occupancies) {
+            fullest.add(occupancy);
+            if (fullest.size() > topN) {
+                fullest.poll();
+            }
+        }
+        List<FleetReport.LotOccupancy> fullestLots = new ArrayList<>(fullest);
+        fullestLots.sort(Collections.reverseOrder(BY_OCCUPANCY));
+
+        return new FleetReport(now, lotArray.length, totals.totalSpots, totals.occupiedSpots, totals.dwellSeconds,
+            totals.projectedRevenue, totals.hourlyRevenue, fullestLots, totals.lockedLots);
+    }
+
+    /**
+     * Stops the worker threads. Reports in progress are completed.
+     */
+    public void stop() {
+        pool.shutdown();
+    }
+
+    /**
+     * Scans a single lot, optimistically first and under its lock if it keeps changing.
+     */
+    private static LotTotals scanLot(ParkingLot lot, long nowSeconds) {
+        LotTotals totals = new LotTotals();
+        SpotTotals spots = null;
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS && spots == null; attempt++) {
+            long stamp;
+            ParkingSpot[][] grid;
+            synchronized (lot) {
+                stamp = lot.beginOptimisticRead();
+                grid = lot.peekGrid();
+            }
+            SpotTotals read;
+            if (grid != null) {
+                read = new RowRangeTask(grid, 0, lot.getRows(), lot.getCols(), nowSeconds).invoke();
+            } else if (lot.getOccupiedSpots() == 0) {
+                // An evicted lot without occupants has nothing to scan
+                read = new SpotTotals();
+            } else {
+                break;
+            }
+            synchronized (lot) {
+                if (lot.validateRead(stamp)) {
+                    spots = read;
+                }
+            }
+        }
+        if (spots == null) {
+            spots = new SpotTotals();
+            synchronized (lot) {
+                scanRows(lot.scanGrid(), 0, lot.getRows(), nowSeconds, spots);
+            }
+            totals.lockedLots = 1;
+        }
+
+        double rate = lot.getCurrentHourlyRate();
+        totals.totalSpots = lot.getTotalSpots();
+        totals.occupiedSpots = spots.occupiedSpots;
+        totals.dwellSeconds = spots.dwellSeconds;
+        totals.projectedRevenue = spots.dwellSeconds / 3600.0 * rate;
+        totals.hourlyRevenue = spots.occupiedSpots * rate;
+        return totals;
+    }
+
+    /**
+     * Counts the occupied spots in a range of rows and adds up how long they have been occupied.
+     * May run on a grid that is being changed, so inconsistent values are tolerated
+     * rather than trusted; the caller validates the result.
+     */
+    private static void scanRows(ParkingSpot[][] grid, int fromRow, int toRow, long nowSeconds, SpotTotals totals) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (ParkingSpot spot : grid[row]) {
+                if (spot == null || !spot.isOccupied()) {
+                    continue;
+                }
+                totals.occupiedSpots++;
+                LocalDateTime startTime = spot.getOccupationStartTime();
+                if (startTime != null) {
+                    totals.dwellSeconds += Math.max(0, nowSeconds - startTime.toEpochSecond(ZoneOffset.UTC));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports on a range of lots, splitting it in halves until it is small enough.
+     */
+    private static class LotRangeTask extends RecursiveTask<LotTotals> {
+        private final ParkingLot[] lots;
+        private final FleetReport.LotOccupancy[] occupancies;
+        private final long nowSeconds;
+        private final int from;
+        private final int to;
+
+        LotRangeTask(ParkingLot[] lots, FleetReport.LotOccupancy[] occupancies, long nowSeconds, int from, int to) {
+            this.lots = lots;
+            this.occupancies = occupancies;
+            this.nowSeconds = nowSeconds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LotTotals compute() {
+            if (to - from > LOTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                LotRangeTask left = new LotRangeTask(lots, occupancies, nowSeconds, from, middle);
+                left.fork();
+                LotTotals totals = new LotRangeTask(lots, occupancies, nowSeconds, middle, to).compute();
+                totals.add(left.join());
+                return totals;
+            }
+            LotTotals totals = new LotTotals();
+            for (int i = from; i < to; i++) {
+                LotTotals lotTotals = scanLot(lots[i], nowSeconds);
+                occupancies[i] = new FleetReport.LotOccupancy(lots[i].getName(),
+                    (int) lotTotals.occupiedSpots, (int) lotTotals.totalSpots);
+                totals.add(lotTotals);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Scans a range of rows of one grid, splitting it in halves until it is small enough.
+     */
+    private static class RowRangeTask extends RecursiveTask<SpotTotals> {
+        private final ParkingSpot[][] grid;
+        private final int fromRow;
+        private final int toRow;
+        private final int cols;
+        private final long nowSeconds;
+
+        RowRangeTask(ParkingSpot[][] grid, int fromRow, int toRow, int cols, long nowSeconds) {
+            this.grid = grid;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.cols = cols;
+            this.nowSeconds = nowSeconds;
+        }
+
+        @Override
+        protected SpotTotals compute() {
+            if (toRow - fromRow > 1 && (long) (toRow - fromRow) * cols > SPOTS_PER_TASK) {
+                int middle = (fromRow + toRow) >>> 1;
+                RowRangeTask top = new RowRangeTask(grid, fromRow, middle, cols, nowSeconds);
+                top.fork();
+                SpotTotals totals = new RowRangeTask(grid, middle, toRow, cols, nowSeconds).compute();
+                totals.add(top.join());
+                return totals;
+            }
+            SpotTotals totals = new SpotTotals();
+            scanRows(grid, fromRow, toRow, nowSeconds, totals);
+            return totals;
+        }
+    }
+}
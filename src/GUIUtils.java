@@ -14,6 +14,7 @@ public class GUIUtils {
     public static final Color TEXT_MEDIUM = new Color(70, 70, 70);
     public static final Color SPOT_AVAILABLE = Color.GREEN;
     public static final Color SPOT_OCCUPIED = Color.RED;
+    public static final Color SPOT_HIGHLIGHT = Color.ORANGE;
     
     // Common fonts
     public static final Font FONT_BOLD_16 = new Font("Arial", Font.BOLD, 16);
@@ -26,7 +27,9 @@ public class GUIUtils {
     public static final Dimension SPOT_BUTTON_SIZE = new Dimension(60, 40);
     public static final Dimension SPOT_LABEL_SIZE = new Dimension(60, 20);
     public static final Dimension COMBO_BOX_SIZE = new Dimension(200, 30);
+    public static final Dimension SEARCH_FIELD_SIZE = new Dimension(200, 26);
     public static final Dimension BUTTON_SIZE = new Dimension(80, 30);
+    public static final Dimension TOGGLE_BUTTON_SIZE = new Dimension(100, 30);
     public static final Dimension LEGEND_COLOR_SIZE = new Dimension(20, 20);
     
     // Common insets
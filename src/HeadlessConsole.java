@@ -0,0 +1,810 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operates the parking lot system without a display. Commands are read one per line from
+ * a script file or from standard input; arguments containing spaces are double-quoted:
+ * <pre>
+ *   sample                              load the four sample lots
+ *   create "North Garage" 3.50 40 50    create a lot (name, hourly rate, rows, cols)
+ *   import lots.csv                     import lots from a LotDataIO CSV or binary file
+ *   export lots.bin                     export all lots (.csv for CSV, otherwise binary)
+ *   replay events.csv                   apply an event file to the lots
+ *   report [lot]                        print availability per lot and in total
+ *   fleet [topN]                        print fleet-wide aggregates and the fullest lots
+ *   forecast 2 [lot]                    forecast available spots per lot 2 hours ahead
+ *   dwell [lot]                         print dwell-time percentiles of completed sessions
+ *   overstay [hours]                    list vehicles parked longer than 4 or the given hours
+ *   load 10 4 ["North Garage"]          occupy/vacate random spots for 10 s on 4 threads
+ *   residency lots/ 100000 [minutes]    keep lots in a directory, at most 100000 spots in memory
+ *   archive sessions/                   archive completed sessions in a directory
+ *   history ABC123 [days]               list archived sessions of a vehicle
+ *   leader 9090                         replicate all changes to followers on a port
+ *   follow localhost 9090               follow a replication leader
+ *   promote [port]                      promote the follower and lead on a port
+ *   ingest 9100                         accept sensor events on a port
+ *   ingestload 10 4 [host port]         send sensor events from 4 clients for 10 s
+ *   help, quit
+ * </pre>
+ * Event files have one event per line; lines starting with # are ignored:
+ * <pre>
+ *   OCCUPY,Downtown Mall,0,2,ABC123[,startMillis]
+ *   VACATE,Downtown Mall,0,2
+ * </pre>
+ * The console only uses the model classes, so AWT is never initialized and the JVM starts
+ * quickly and works on servers without a display.
+ */
+public class HeadlessConsole {
+    private static final int SESSIONS_PER_SEGMENT = 65536;
+    private static final int LOAD_VEHICLE_IDS = 1024;
+    private static final int DEFAULT_TOP_LOTS = 5;
+    private static final int INGEST_WINDOW = 8192;
+    private static final int INGEST_BATCH = 256;
+
+    private final ParkingLotManager manager = new ParkingLotManager();
+    private final OccupancyForecaster forecaster = new OccupancyForecaster();
+    private final DwellTimeTracker dwellTracker = new DwellTimeTracker();
+    private final OverstayMonitor overstayMonitor = new OverstayMonitor(OverstayMonitor.DEFAULT_LIMIT);
+    private final DynamicPricingEngine pricing = new DynamicPricingEngine();
+    private LotResidencyManager residency;
+    private SessionArchive archive;
+    private FleetReporter fleetReporter;
+    private SensorIngestServer ingestServer;
+    private ReplicationFollower follower;
+    private int promotePort;
+
+    /**
+     * Constructs a console without lots. The occupancy history, the completed sessions and
+     * the parked vehicles of every lot added later are tracked for forecasts, dwell-time
+     * statistics and overstay queries.
+     */
+    public HeadlessConsole() {
+        manager.addParkingLotListener(forecaster);
+        manager.addParkingLotListener(dwellTracker);
+        manager.addParkingLotListener(overstayMonitor);
+    }
+
+    /**
+     * Runs the commands of a script file, or of standard input if no file is given.
+     * Exits with status 1 if a script command fails.
+     * @param args an optional script file
+     * @throws IOException if the script cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        HeadlessConsole console = new HeadlessConsole();
+        boolean success;
+        if (args.length > 0) {
+            try (BufferedReader script = Files.newBufferedReader(Paths.get(args[0]))) {
+                success = console.run(script, false);
+            }
+        } else {
+            success = console.run(new BufferedReader(new InputStreamReader(System.in)), System.console() != null);
+        }
+        if (!success) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executes commands until the input ends or a quit command is read.
+     * @param input the command lines
+     * @param interactive true to prompt and keep going after a failed command
+     * @return false if a command failed in a non-interactive run
+     * @throws IOException if reading the input fails
+     */
+    public boolean run(BufferedReader input, boolean interactive) throws IOException {
+        try {
+            int lineNumber = 0;
+            String line;
+            while (prompt(interactive) && (line = input.readLine()) != null) {
+                lineNumber++;
+                List<String> words = tokenize(line);
+                if (words.isEmpty() || words.get(0).startsWith("#")) {
+                    continue;
+                }
+                if (words.get(0).equals("quit") || words.get(0).equals("exit")) {
+                    break;
+                }
+                try {
+                    execute(words);
+                } catch (IOException | RuntimeException | InterruptedException e) {
+                    String location = interactive ? "" : " (line " + lineNumber + ")";
+                    System.err.println("Error" + location + ": " + e.getMessage());
+                    if (!interactive) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            if (ingestServer != null) {
+                ingestServer.stop();
+            }
+            if (fleetReporter != null) {
+                fleetReporter.stop();
+            }
+            forecaster.stop();
+            pricing.stop();
+            if (residency != null) {
+                closeResidency();
+            }
+            if (archive != null) {
+                manager.removeParkingLotListener(archive);
+                archive.close();
+            }
+        }
+    }
+
+    /**
+     * Follows a leader, printing every applied change.
+     * Typing "promote" on standard input promotes this process to leader on promotePort;
+     * later "promote" lines are ignored.
+     * @param host the leader host
+     * @param port the leader port
+     * @param promotePort the port to lead on after promotion
+     * @throws IOException if the leader socket cannot be opened after promotion
+     * @throws InterruptedException if interrupted while promoting
+     */
+    public static void runFollower(String host, int port, int promotePort) throws IOException, InterruptedException {
+        ParkingLotManager manager = new ParkingLotManager();
+        manager.addParkingLotListener(new ParkingLotListener() {
+            @Override
+            public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+                System.out.println(lot.getName() + " (" + row + "," + col + ") occupied by " + vehicleId);
+            }
+
+            @Override
+            public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+                System.out.println(lot.getName() + " (" + row + "," + col + ") vacated by " + vehicleId);
+            }
+
+            @Override
+            public void lotAdded(ParkingLot lot) {
+                System.out.println("Replicating lot " + lot.getName());
+            }
+        });
+
+        ReplicationFollower follower = new ReplicationFollower(manager, host, port);
+        follower.start();
+        System.out.println("Following leader at " + host + ":" + port + " (type 'promote' to take over)");
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+        boolean promoted = false;
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.trim().equals("promote")) {
+                if (promoted) {
+                    System.out.println("Already promoted, leading on port " + promotePort);
+                } else {
+                    promote(manager, follower, promotePort);
+                    promoted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a single command.
+     * @param words the command name followed by its arguments
+     */
+    private void execute(List<String> words) throws IOException, InterruptedException {
+        String command = words.get(0);
+        switch (command) {
+            case "sample":
+                for (ParkingLot lot : ExampleData.createSampleData(pricing).getAllParkingLots()) {
+                    addLot(lot);
+                }
+                pricing.start();
+                break;
+            case "create":
+                expectArguments(words, 4, 4, "create <name> <rate> <rows> <cols>");
+                addLot(new ParkingLot(words.get(1), Double.parseDouble(words.get(2)),
+                    Integer.parseInt(words.get(3)), Integer.parseInt(words.get(4))));
+                break;
+            case "import":
+                expectArguments(words, 1, 1, "import <file>");
+                importLots(Paths.get(words.get(1)));
+                break;
+            case "export":
+                expectArguments(words, 1, 1, "export <file>");
+                exportLots(Paths.get(words.get(1)));
+                break;
+            case "replay":
+                expectArguments(words, 1, 1, "replay <file>");
+                replay(Paths.get(words.get(1)));
+                break;
+            case "report":
+                expectArguments(words, 0, 1, "report [lot]");
+                report(words.size() > 1 ? findLot(words.get(1)) : null);
+                break;
+            case "fleet":
+                expectArguments(words, 0, 1, "fleet [topN]");
+                fleetReport(words.size() > 1 ? positive(words.get(1), "topN") : DEFAULT_TOP_LOTS);
+                break;
+            case "forecast":
+                expectArguments(words, 1, 2, "forecast <hours> [lot]");
+                forecast(positive(words.get(1), "hours"), words.size() > 2 ? findLot(words.get(2)) : null);
+                break;
+            case "dwell":
+                expectArguments(words, 0, 1, "dwell [lot]");
+                dwell(words.size() > 1 ? findLot(words.get(1)) : null);
+                break;
+            case "overstay":
+                expectArguments(words, 0, 1, "overstay [hours]");
+                overstay(words.size() > 1 ? Duration.ofHours(positive(words.get(1), "hours")) : overstayMonitor.getLimit());
+                break;
+            case "load":
+                expectArguments(words, 1, 3, "load <seconds> [threads] [lot]");
+                runLoad(positive(words.get(1), "seconds"),
+                    words.size() > 2 ? positive(words.get(2), "threads") : Runtime.getRuntime().availableProcessors(),
+                    words.size() > 3 ? findLot(words.get(3)) : null);
+                break;
+            case "residency":
+                expectArguments(words, 2, 3, "residency <directory> <maxSpots> [idleMinutes]");
+                openResidency(Paths.get(words.get(1)), positive(words.get(2), "maxSpots"),
+                    words.size() > 3 ? positive(words.get(3), "idleMinutes") : 0);
+                break;
+            case "archive":
+                expectArguments(words, 1, 1, "archive <directory>");
+                openArchive(Paths.get(words.get(1)));
+                break;
+            case "history":
+                expectArguments(words, 1, 2, "history <vehicle> [days]");
+                history(words.get(1), words.size() > 2 ? Integer.parseInt(words.get(2)) : -1);
+                break;
+            case "leader":
+                expectArguments(words, 1, 1, "leader <port>");
+                ReplicationLeader leader = new ReplicationLeader(manager, Integer.parseInt(words.get(1)));
+                leader.start();
+                System.out.println("Replication leader listening on port " + leader.getPort());
+                break;
+            case "follow":
+                expectArguments(words, 2, 3, "follow <host> <port> [promotePort]");
+                if (follower != null) {
+                    throw new IllegalStateException("Already following a leader");
+                }
+                promotePort = Integer.parseInt(words.get(words.size() > 3 ? 3 : 2));
+                follower = new ReplicationFollower(manager, words.get(1), Integer.parseInt(words.get(2)));
+                follower.start();
+                System.out.println("Following leader at " + words.get(1) + ":" + words.get(2));
+                break;
+            case "promote":
+                expectArguments(words, 0, 1, "promote [port]");
+                if (follower == null) {
+                    throw new IllegalStateException("Not following a leader");
+                }
+                promote(manager, follower, words.size() > 1 ? Integer.parseInt(words.get(1)) : promotePort);
+                follower = null;
+                break;
+            case "ingest":
+                expectArguments(words, 1, 1, "ingest <port>");
+                if (ingestServer != null) {
+                    throw new IllegalStateException("Already ingesting on port " + ingestServer.getPort());
+                }
+                ingestServer = new SensorIngestServer(manager, Integer.parseInt(words.get(1)));
+                ingestServer.start();
+                System.out.println("Sensor ingest server listening on port " + ingestServer.getPort());
+                break;
+            case "ingestload":
+                expectArguments(words, 1, 4, "ingestload <seconds> [clients] [host port]");
+                if (words.size() == 4) {
+                    throw new IllegalArgumentException("Usage: ingestload <seconds> [clients] [host port]");
+                }
+                if (words.size() < 5 && ingestServer == null) {
+                    throw new IllegalStateException("No local ingest server (use ingest <port> or give host and port)");
+                }
+                runIngestLoad(positive(words.get(1), "seconds"),
+                    words.size() > 2 ? positive(words.get(2), "clients") : Runtime.getRuntime().availableProcessors(),
+                    words.size() > 4 ? words.get(3) : "localhost",
+                    words.size() > 4 ? Integer.parseInt(words.get(4)) : ingestServer.getPort());
+                break;
+            case "help":
+                System.out.println("Commands: sample, create, import, export, replay, report, fleet, forecast, dwell, overstay,"
+                    + " load, residency, archive, history, leader, follow, promote, ingest, ingestload, quit");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + command + " (type help for a list)");
+        }
+    }
+
+    private void addLot(ParkingLot lot) {
+        if (manager.getParkingLotByName(lot.getName()) != null) {
+            throw new IllegalArgumentException("Lot " + lot.getName() + " already exists");
+        }
+        manager.addParkingLot(lot);
+        System.out.println("Added " + lot.getName() + " (" + lot.getRows() + "x" + lot.getCols() + ", "
+            + lot.getOccupiedSpots() + " occupied)");
+    }
+
+    private void importLots(Path file) throws IOException {
+        long start = System.nanoTime();
+        List<ParkingLot> lots = file.toString().endsWith(".csv") ? LotDataIO.readCsv(file) : LotDataIO.readBinary(file);
+        for (ParkingLot lot : lots) {
+            if (manager.getParkingLotByName(lot.getName()) != null) {
+                throw new IllegalArgumentException("Lot " + lot.getName() + " already exists");
+            }
+        }
+        for (ParkingLot lot : lots) {
+            manager.addParkingLot(lot);
+        }
+        System.out.printf("Imported %d lots in %.1f ms%n", lots.size(), (System.nanoTime() - start) / 1e6);
+    }
+
+    private void exportLots(Path file) throws IOException {
+        List<ParkingLot> lots = manager.getAllParkingLots();
+        if (file.toString().endsWith(".csv")) {
+            LotDataIO.writeCsv(file, lots);
+        } else {
+            LotDataIO.writeBinary(file, lots);
+        }
+        System.out.println("Exported " + lots.size() + " lots to " + file);
+    }
+
+    /**
+     * Applies every event of an event file. Events that cannot be applied, such as vacating
+     * a free spot, are counted but do not stop the replay.
+     */
+    private void replay(Path file) throws IOException {
+        long start = System.nanoTime();
+        long applied = 0;
+        long rejected = 0;
+        ParkingLot lot = null;
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> fields = splitCsv(line);
+                String type = fields.get(0);
+                boolean occupy = type.equals("OCCUPY");
+                if (!occupy && !type.equals("VACATE") || fields.size() < (occupy ? 5 : 4)) {
+                    throw new IOException(file + ":" + lineNumber + ": malformed event");
+                }
+                // Events of a lot usually come in runs, so only look the lot up when the name changes
+                if (lot == null || !lot.getName().equals(fields.get(1))) {
+                    lot = manager.getParkingLotByName(fields.get(1));
+                    if (lot == null) {
+                        throw new IOException(file + ":" + lineNumber + ": unknown lot " + fields.get(1));
+                    }
+                }
+                int row;
+                int col;
+                try {
+                    row = Integer.parseInt(fields.get(2));
+                    col = Integer.parseInt(fields.get(3));
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": invalid spot", e);
+                }
+                boolean ok;
+                if (occupy) {
+                    LocalDateTime startTime;
+                    try {
+                        startTime = fields.size() > 5
+                            ? TimeUtils.fromEpochMillis(Long.parseLong(fields.get(5))) : LocalDateTime.now();
+                    } catch (NumberFormatException | DateTimeException e) {
+                        throw new IOException(file + ":" + lineNumber + ": invalid start time", e);
+                    }
+                    ok = lot.occupySpot(row, col, fields.get(4), startTime);
+                } else {
+                    ok = lot.vacateSpot(row, col);
+                }
+                if (ok) {
+                    applied++;
+                } else {
+                    rejected++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Replayed %d events (%d applied, %d rejected) in %.2f s, %.0f events/s%n",
+            applied + rejected, applied, rejected, seconds, (applied + rejected) / seconds);
+    }
+
+    /**
+     * Prints available and occupied spots and the current rate of one or all lots.
+     * Only the lots' maintained counts are read, so the report does not load unloaded grids.
+     */
+    private void report(ParkingLot only) {
+        List<ParkingLot> lots = new ArrayList<>();
+        if (only != null) {
+            lots.add(only);
+        } else {
+            lots.addAll(manager.getAllParkingLots());
+        }
+        System.out.printf("%-30s %10s %10s %9s %9s%n", "Lot", "Available", "Total", "Occupied", "Rate");
+        long available = 0;
+        long total = 0;
+        for (ParkingLot lot : lots) {
+            int lotAvailable = lot.getAvailableSpots();
+            int lotTotal = lot.getTotalSpots();
+            System.out.printf("%-30s %10d %10d %8.1f%% %9s%n", lot.getName(), lotAvailable, lotTotal,
+                percentOccupied(lotAvailable, lotTotal), String.format("$%.2f", lot.getCurrentHourlyRate()));
+            available += lotAvailable;
+            total += lotTotal;
+        }
+        if (lots.size() > 1) {
+            System.out.printf("%-30s %10d %10d %8.1f%%%n", "Total (" + lots.size() + " lots)", available, total,
+                percentOccupied(available, total));
+        }
+    }
+
+    private void fleetReport(int topN) {
+        if (fleetReporter == null) {
+            fleetReporter = new FleetReporter();
+        }
+        long start = System.nanoTime();
+        FleetReport report = fleetReporter.report(manager, topN);
+        System.out.println(report);
+        System.out.printf("Computed in %.1f ms (%d lots read under lock)%n",
+            (System.nanoTime() - start) / 1e6, report.getLockedLots());
+    }
+
+    /**
+     * Rebuilds the forecast models from the history recorded so far and prints the current
+     * and the expected number of available spots of one or all lots. Lots without a
+     * completed session yet are forecast to stay as they are.
+     */
+    private void forecast(int hours, ParkingLot only) {
+        forecaster.recompute();
+        List<ParkingLot> lots = new ArrayList<>();
+        if (only != null) {
+            lots.add(only);
+        } else {
+            lots.addAll(manager.getAllParkingLots());
+        }
+        LocalDateTime time = LocalDateTime.now().plusHours(hours);
+        System.out.printf("%-30s %10s %10s %10s%n", "Lot", "Available", "In " + hours + " h", "Total");
+        for (ParkingLot lot : lots) {
+            System.out.printf("%-30s %10d %10d %10d%n", lot.getName(), lot.getAvailableSpots(),
+                forecaster.forecastAvailableSpots(lot, time), lot.getTotalSpots());
+        }
+    }
+
+    /**
+     * Prints the dwell-time statistics of the sessions completed since the console started,
+     * per lot and for all lots.
+     */
+    private void dwell(ParkingLot only) {
+        System.out.printf("%-30s %9s %9s %9s %9s %9s %9s%n", "Lot (minutes)", "Sessions", "Mean", "p50", "p90", "p99", "Max");
+        if (only != null) {
+            printDwell(only.getName(), dwellTracker.getLotStats(only));
+            return;
+        }
+        List<ParkingLot> lots = manager.getAllParkingLots();
+        for (ParkingLot lot : lots) {
+            printDwell(lot.getName(), dwellTracker.getLotStats(lot));
+        }
+        printDwell("All (" + lots.size() + " lots)", dwellTracker.getFleetStats());
+    }
+
+    private static void printDwell(String name, QuantileSketch seconds) {
+        System.out.printf("%-30s %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, seconds.getCount(), seconds.getMean() / 60,
+            seconds.getQuantile(0.5) / 60.0, seconds.getQuantile(0.9) / 60.0, seconds.getQuantile(0.99) / 60.0,
+            seconds.getMax() / 60.0);
+    }
+
+    /**
+     * Lists the vehicles parked longer than a duration, longest first.
+     */
+    private void overstay(Duration duration) {
+        List<SpotRef> spots = overstayMonitor.getParkedLongerThan(duration);
+        for (SpotRef spot : spots) {
+            Duration parked = spot.getOccupationDuration();
+            System.out.printf("%s, parked %d h %02d min%n", spot, parked.toHours(), parked.toMinutes() % 60);
+        }
+        System.out.println(spots.size() + " vehicles parked longer than " + duration.toHours() + " h");
+    }
+
+    private static double percentOccupied(long available, long total) {
+        return total == 0 ? 0 : 100.0 * (total - available) / total;
+    }
+
+    /**
+     * Drives random occupy/vacate operations against the lots for a fixed time and prints
+     * the throughput and latency percentiles. Each operation tries to occupy a random spot
+     * and vacates it instead if it is taken, so lots settle around half occupancy.
+     * @param seconds how long to run
+     * @param threads the number of driver threads
+     * @param only the lot to drive, or null for all lots
+     */
+    private void runLoad(int seconds, int threads, ParkingLot only) throws InterruptedException {
+        ParkingLot[] lots = only != null ? new ParkingLot[] {only} : manager.getAllParkingLots().toArray(new ParkingLot[0]);
+        if (lots.length == 0) {
+            throw new IllegalStateException("No lots to drive");
+        }
+        QuantileSketch latency = new QuantileSketch();
+        AtomicLong operations = new AtomicLong();
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+
+        Thread[] drivers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String prefix = "LOAD" + t + "-";
+            drivers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // Reuse a fixed set of IDs so the driver measures the lots rather than allocation
+                    String[] vehicleIds = new String[LOAD_VEHICLE_IDS];
+                    for (int i = 0; i < vehicleIds.length; i++) {
+                        vehicleIds[i] = prefix + i;
+                    }
+                    QuantileSketch localLatency = new QuantileSketch();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long count = 0;
+                    long start;
+                    while ((start = System.nanoTime()) < deadline) {
+                        ParkingLot lot = lots[random.nextInt(lots.length)];
+                        int row = random.nextInt(lot.getRows());
+                        int col = random.nextInt(lot.getCols());
+                        if (!lot.occupySpot(row, col, vehicleIds[(int) (count % LOAD_VEHICLE_IDS)])) {
+                            lot.vacateSpot(row, col);
+                        }
+                        localLatency.add(System.nanoTime() - start);
+                        count++;
+                    }
+                    latency.merge(localLatency);
+                    operations.addAndGet(count);
+                }
+            }, "load-driver-" + t);
+            drivers[t].setDaemon(true);
+            drivers[t].start();
+        }
+        for (Thread driver : drivers) {
+            driver.join();
+        }
+
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        long count = operations.get();
+        System.out.printf("%d ops on %d threads in %.2f s: %.0f ops/s%n", count, threads, elapsed, count / elapsed);
+        System.out.printf("Latency (us): mean %.2f, p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+            latency.getMean() / 1000, latency.getQuantile(0.5) / 1000.0, latency.getQuantile(0.9) / 1000.0,
+            latency.getQuantile(0.99) / 1000.0, latency.getQuantile(0.999) / 1000.0, latency.getMax() / 1000.0);
+    }
+
+    /**
+     * Sends pipelined sensor events to an ingest server for a fixed time and prints the
+     * throughput. Each client alternately occupies and vacates random spots. Lots are
+     * addressed by their index in this console, so the server must serve the same lots in
+     * the same order, as the one started by the ingest command does.
+     * @param seconds how long to send
+     * @param clients the number of clients, each with its own connection and thread
+     * @param host the server host
+     * @param port the server port
+     */
+    private void runIngestLoad(int seconds, int clients, String host, int port) throws InterruptedException {
+        ParkingLot[] lots = manager.getAllParkingLots().toArray(new ParkingLot[0]);
+        if (lots.length == 0) {
+            throw new IllegalStateException("No lots to send events for");
+        }
+        AtomicLong events = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+
+        Thread[] senders = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            int clientNumber = t;
+            senders[t] = new Thread(() -> {
+                String vehicleId = "SENSOR" + clientNumber;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                try (SensorIngestClient client = new SensorIngestClient(host, port, INGEST_WINDOW)) {
+                    while (System.nanoTime() < deadline) {
+                        for (int i = 0; i < INGEST_BATCH; i++) {
+                            int lotIndex = random.nextInt(lots.length);
+                            int row = random.nextInt(lots[lotIndex].getRows());
+                            int col = random.nextInt(lots[lotIndex].getCols());
+                            client.occupy(lotIndex, row, col, vehicleId);
+                            client.vacate(lotIndex, row, col);
+                            count += 2;
+                        }
+                    }
+                    rejected.addAndGet(client.awaitAll());
+                    events.addAndGet(count);
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    System.err.println("Ingest client " + clientNumber + " failed: " + e.getMessage());
+                }
+            }, "ingest-load-" + t);
+            senders[t].setDaemon(true);
+            senders[t].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d events from %d clients in %.2f s: %.0f events/s (%d rejected)%n",
+            events.get(), clients, elapsed, events.get() / elapsed, rejected.get());
+    }
+
+    /**
+     * Stores the lots in a directory and keeps only a bounded number of their spots in memory.
+     * Lots already stored in the directory are added without loading their grids, and the
+     * console's current lots are stored there from now on. Grids are saved when evicted and
+     * when the console ends. The forecaster and the overstay monitor read the spots of every
+     * lot once when it is added, after which unused grids are evicted again.
+     * @param directory the directory holding the stored lots
+     * @param maxSpots the maximum number of spots kept in memory
+     * @param idleMinutes evict grids untouched for this long, or 0 to evict only over budget
+     */
+    private void openResidency(Path directory, int maxSpots, int idleMinutes) throws IOException {
+        if (residency != null) {
+            throw new IllegalStateException("Lots are already kept in a directory");
+        }
+        LotResidencyManager opened = new LotResidencyManager(directory, maxSpots);
+        List<ParkingLot> stored = opened.openStoredLots();
+        for (ParkingLot lot : stored) {
+            if (manager.getParkingLotByName(lot.getName()) != null) {
+                opened.stop();
+                throw new IllegalArgumentException("Lot " + lot.getName() + " already exists");
+            }
+        }
+        residency = opened;
+        for (ParkingLot lot : manager.getAllParkingLots()) {
+            residency.manage(lot);
+        }
+        for (ParkingLot lot : stored) {
+            manager.addParkingLot(lot);
+        }
+        if (idleMinutes > 0) {
+            residency.start(Duration.ofMinutes(idleMinutes));
+        }
+        System.out.println("Keeping lots in " + directory + " (" + stored.size() + " stored lots opened, "
+            + residency.getResidentSpots() + " spots in memory)");
+    }
+
+    /**
+     * Saves the resident grids and stops eviction.
+     */
+    private void closeResidency() {
+        residency.stop();
+        try {
+            residency.saveAll();
+        } catch (IOException e) {
+            System.err.println("Failed to save parking lots: " + e.getMessage());
+        }
+    }
+
+    private void openArchive(Path directory) throws IOException {
+        if (archive != null) {
+            throw new IllegalStateException("An archive is already open");
+        }
+        archive = new SessionArchive(directory, SESSIONS_PER_SEGMENT);
+        manager.addParkingLotListener(archive);
+        System.out.println("Archiving sessions to " + directory + " (" + archive.getSessionCount() + " archived)");
+    }
+
+    private void history(String vehicleId, int days) throws IOException {
+        if (archive == null) {
+            throw new IllegalStateException("No archive open (use archive <directory>)");
+        }
+        LocalDateTime from = days >= 0 ? LocalDateTime.now().minusDays(days) : null;
+        List<ParkingSession> sessions = archive.query(vehicleId, from, null);
+        for (ParkingSession session : sessions) {
+            System.out.println(session);
+        }
+        System.out.println(sessions.size() + " sessions");
+    }
+
+    /**
+     * Promotes a follower and starts leading on the given port.
+     */
+    private static void promote(ParkingLotManager manager, ReplicationFollower follower, int port)
+            throws IOException, InterruptedException {
+        boolean caughtUp = follower.promote(5000);
+        System.out.println("Promoted at sequence " + follower.getAppliedSequence()
+            + (caughtUp ? "" : " (catch-up window elapsed before leader drained)"));
+        ReplicationLeader leader = new ReplicationLeader(manager, port);
+        leader.start();
+        System.out.println("Replication leader listening on port " + leader.getPort());
+    }
+
+    private ParkingLot findLot(String name) {
+        ParkingLot lot = manager.getParkingLotByName(name);
+        if (lot == null) {
+            throw new IllegalArgumentException("Unknown lot " + name);
+        }
+        return lot;
+    }
+
+    /**
+     * Parses a count that must be at least 1.
+     */
+    private static int positive(String word, String name) {
+        int value = Integer.parseInt(word);
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    private static void expectArguments(List<String> words, int min, int max, String usage) {
+        int count = words.size() - 1;
+        if (count < min || count > max) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static boolean prompt(boolean interactive) {
+        if (interactive) {
+            System.out.print("> ");
+            System.out.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Splits a command line into words separated by spaces; double quotes group words.
+     */
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inWord = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Splits a CSV line into fields; quoted fields may contain commas and doubled quotes.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,318 @@
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.*;
+
+/**
+ * A zoomable heatmap of a lot's spot history, for lots too large for one panel per spot.
+ * Each spot is one cell colored by its average dwell time or its turnover, as recorded by
+ * a {@link SpotActivityTracker}. Cells are rendered at one pixel per spot into cached
+ * {@code BufferedImage} tiles of {@link SpotActivityTracker#TILE_SIZE} spots square, which
+ * are then drawn scaled, so zooming and panning never re-render anything. A tile is only
+ * re-rendered when the tracker reports that one of its spots changed and it is visible.
+ *
+ * Drag to pan, use the mouse wheel to zoom, and hover over a cell for its figures.
+ */
+public class HeatmapView extends JComponent {
+
+    /**
+     * The figure a heatmap displays.
+     */
+    public enum Metric {
+        /** Average duration of completed parking sessions, saturating at four hours. */
+        DWELL_TIME("Avg. dwell time", 4 * 3600, "4h"),
+        /** Number of completed parking sessions, saturating at twenty. */
+        TURNOVER("Turnover", 20, "20 sessions");
+
+        private final String label;
+        private final double maxValue;
+        private final String maxLabel;
+
+        Metric(String label, double maxValue, String maxLabel) {
+            this.label = label;
+            this.maxValue = maxValue;
+            this.maxLabel = maxLabel;
+        }
+
+        double valueOf(SpotActivityTracker.LotActivity activity, int row, int col) {
+            return this == DWELL_TIME ? activity.getAverageDwellSeconds(row, col) : activity.getSessions(row, col);
+        }
+    }
+
+    private static final int TILE_SIZE = SpotActivityTracker.TILE_SIZE;
+    private static final int NO_DATA_COLOR = 0xE6E6E6;
+    private static final int[] PALETTE = createPalette();
+    private static final double MAX_SCALE = 64;
+    private static final int POLL_INTERVAL_MILLIS = 250;
+
+    /**
+     * A rendered tile and the tracker version it was rendered from.
+     */
+    private static class CachedTile {
+        final BufferedImage image;
+        final int version;
+
+        CachedTile(BufferedImage image, int version) {
+            this.image = image;
+            this.version = version;
+        }
+    }
+
+    private final SpotActivityTracker tracker;
+    private final Map<Integer, CachedTile> tiles = new HashMap<>();
+    private final Timer pollTimer;
+    private ParkingLot lot;
+    private SpotActivityTracker.LotActivity activity;
+    private Metric metric = Metric.DWELL_TIME;
+    private double scale = 1;
+    private double offsetX;
+    private double offsetY;
+    private boolean fitPending;
+    private int paintedVersion = -1;
+    private Point dragStart;
+
+    /**
+     * Constructs a new heatmap view.
+     * @param tracker the tracker providing the spot history
+     */
+    public HeatmapView(SpotActivityTracker tracker) {
+        this.tracker = tracker;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setToolTipText("");
+
+        // Repaint when the displayed lot recorded new sessions
+        pollTimer = new Timer(POLL_INTERVAL_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (activity != null && activity.getVersion() != paintedVersion) {
+                    repaint();
+                }
+            }
+        });
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null) {
+                    offsetX -= e.getX() - dragStart.x;
+                    offsetY -= e.getY() - dragStart.y;
+                    dragStart = e.getPoint();
+                    repaint();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragStart = null;
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(1.25, -e.getPreciseWheelRotation()), e.getPoint());
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
+    }
+
+    /**
+     * Displays the history of a lot, zoomed to fit the view.
+     * @param lot the lot to display, or null for none
+     */
+    public void setLot(ParkingLot lot) {
+        if (lot == this.lot) {
+            return;
+        }
+        this.lot = lot;
+        this.activity = lot != null ? tracker.getActivity(lot) : null;
+        tiles.clear();
+        fitPending = true;
+        repaint();
+    }
+
+    /**
+     * Selects the figure to display.
+     * @param metric the metric
+     */
+    public void setMetric(Metric metric) {
+        if (metric != this.metric) {
+            this.metric = metric;
+            tiles.clear();
+            repaint();
+        }
+    }
+
+    /**
+     * Zooms around a point of the view.
+     * @param factor the factor by which cells grow
+     * @param anchor the point that stays in place
+     */
+    public void zoom(double factor, Point anchor) {
+        double newScale = Math.max(getMinScale(), Math.min(MAX_SCALE, scale * factor));
+        offsetX = (offsetX + anchor.x) * newScale / scale - anchor.x;
+        offsetY = (offsetY + anchor.y) * newScale / scale - anchor.y;
+        scale = newScale;
+        repaint();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        pollTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        pollTimer.stop();
+        super.removeNotify();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (activity == null) {
+            return;
+        }
+        if (fitPending && getWidth() > 0 && getHeight() > 0) {
+            scale = getMinScale();
+            offsetX = (activity.getCols() * scale - getWidth()) / 2;
+            offsetY = (activity.getRows() * scale - getHeight()) / 2;
+            fitPending = false;
+        }
+        paintedVersion = activity.getVersion();
+
+        // Draw the visible tiles, re-rendering those whose spots changed
+        Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(getSize());
+        int tileRows = (activity.getRows() + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCols = (activity.getCols() + TILE_SIZE - 1) / TILE_SIZE;
+        double tilePixels = TILE_SIZE * scale;
+        int firstTileRow = Math.max(0, (int) Math.floor((clip.y + offsetY) / tilePixels));
+        int lastTileRow = Math.min(tileRows - 1, (int) Math.floor((clip.y + clip.height + offsetY) / tilePixels));
+        int firstTileCol = Math.max(0, (int) Math.floor((clip.x + offsetX) / tilePixels));
+        int lastTileCol = Math.min(tileCols - 1, (int) Math.floor((clip.x + clip.width + offsetX) / tilePixels));
+        for (int tileRow = firstTileRow; tileRow <= lastTileRow; tileRow++) {
+            for (int tileCol = firstTileCol; tileCol <= lastTileCol; tileCol++) {
+                BufferedImage image = getTile(tileRow, tileCol, tileCols);
+                int x = (int) Math.round(tileCol * tilePixels - offsetX);
+                int y = (int) Math.round(tileRow * tilePixels - offsetY);
+                int width = (int) Math.round((tileCol * TILE_SIZE + image.getWidth()) * scale - offsetX) - x;
+                int height = (int) Math.round((tileRow * TILE_SIZE + image.getHeight()) * scale - offsetY) - y;
+                g.drawImage(image, x, y, width, height, null);
+            }
+        }
+        paintLegend(g);
+    }
+
+    /**
+     * Gets a tile from the cache, rendering it if it is missing or outdated.
+     */
+    private BufferedImage getTile(int tileRow, int tileCol, int tileCols) {
+        int key = tileRow * tileCols + tileCol;
+        int version = activity.getTileVersion(tileRow, tileCol);
+        CachedTile cached = tiles.get(key);
+        if (cached == null || cached.version != version) {
+            cached = new CachedTile(renderTile(tileRow, tileCol), version);
+            tiles.put(key, cached);
+        }
+        return cached.image;
+    }
+
+    /**
+     * Renders one tile at one pixel per spot.
+     */
+    private BufferedImage renderTile(int tileRow, int tileCol) {
+        int firstRow = tileRow * TILE_SIZE;
+        int firstCol = tileCol * TILE_SIZE;
+        int width = Math.min(TILE_SIZE, activity.getCols() - firstCol);
+        int height = Math.min(TILE_SIZE, activity.getRows() - firstRow);
+        int[] pixels = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int spotRow = firstRow + row;
+                int spotCol = firstCol + col;
+                if (activity.getSessions(spotRow, spotCol) == 0) {
+                    pixels[row * width + col] = NO_DATA_COLOR;
+                } else {
+                    double ratio = Math.min(1, metric.valueOf(activity, spotRow, spotCol) / metric.maxValue);
+                    pixels[row * width + col] = PALETTE[(int) Math.round(ratio * (PALETTE.length - 1))];
+                }
+            }
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * Draws the color scale of the current metric in the bottom left corner.
+     */
+    private void paintLegend(Graphics g) {
+        int x = 10;
+        int y = getHeight() - 30;
+        int width = 150;
+        g.setColor(new Color(255, 255, 255, 200));
+        g.fillRect(x - 4, y - 16, width + 8, 40);
+        for (int i = 0; i < width; i++) {
+            g.setColor(new Color(PALETTE[i * (PALETTE.length - 1) / (width - 1)]));
+            g.drawLine(x + i, y, x + i, y + 8);
+        }
+        g.setColor(GUIUtils.TEXT_DARK);
+        g.setFont(GUIUtils.FONT_PLAIN_12);
+        g.drawString(metric.label, x, y - 4);
+        g.setFont(GUIUtils.FONT_BOLD_10);
+        g.drawString("0", x, y + 20);
+        String max = metric.maxLabel + "+";
+        g.drawString(max, x + width - g.getFontMetrics().stringWidth(max), y + 20);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        if (activity == null) {
+            return null;
+        }
+        int row = (int) Math.floor((event.getY() + offsetY) / scale);
+        int col = (int) Math.floor((event.getX() + offsetX) / scale);
+        if (!GUIUtils.isValidCoordinates(row, col, activity.getRows(), activity.getCols())) {
+            return null;
+        }
+        long dwellMinutes = activity.getAverageDwellSeconds(row, col) / 60;
+        return String.format("Spot (%d,%d): %d sessions, avg. %dh %dm",
+            row, col, activity.getSessions(row, col), dwellMinutes / 60, dwellMinutes % 60);
+    }
+
+    /**
+     * Gets the scale at which the whole lot fits into the view.
+     */
+    private double getMinScale() {
+        if (activity == null || getWidth() == 0 || getHeight() == 0) {
+            return 1;
+        }
+        return Math.min(MAX_SCALE, Math.min((double) getWidth() / activity.getCols(), (double) getHeight() / activity.getRows()));
+    }
+
+    /**
+     * Creates a color ramp around the hue circle from blue (low) to red (high).
+     */
+    private static int[] createPalette() {
+        int[] palette = new int[256];
+        for (int i = 0; i < palette.length; i++) {
+            float ratio = i / (float) (palette.length - 1);
+            palette[i] = Color.HSBtoRGB(0.66f * (1 - ratio), 0.85f, 0.95f) & 0xFFFFFF;
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,140 @@
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies spot state reports from sensors that may retransmit and reorder events.
+ * Reports state what a spot is ("occupied by ABC123", "vacant") rather than what happened,
+ * so applying the same report twice has no further effect. Two mechanisms drop repeats:
+ * <ul>
+ *   <li>Each report carries a sequence number that increases per spot (e.g. the sensor's
+ *       event counter or its capture timestamp). Reports not newer than the last one applied
+ *       to the spot are stale and ignored, so a late "vacant" can no longer free a spot that
+ *       has been occupied since.</li>
+ *   <li>Each report carries an event ID that is remembered for a while in an
+ *       {@link EventDedupWindow}. This also covers sources that cannot number their reports
+ *       per spot and send sequence number 0.</li>
+ * </ul>
+ * Memory is bounded by the dedup window and one sequence number per spot, independent of
+ * the event rate. The ingestor is safe to use from several threads.
+ */
+public class IdempotentIngestor {
+
+    /**
+     * The result of applying a report.
+     */
+    public enum Outcome {
+        /** The spot changed to the reported state. */
+        APPLIED,
+        /** The spot was already in the reported state. */
+        UNCHANGED,
+        /** The event ID was seen before. */
+        DUPLICATE,
+        /** A report with the same or a higher sequence number was already applied to the spot. */
+        STALE,
+        /** The report addresses an unknown lot or spot. */
+        INVALID
+    }
+
+    private final EventDedupWindow dedupWindow;
+    private final Map<ParkingLot, long[]> spotSequences = new ConcurrentHashMap<>();
+    private final AtomicLong[] outcomeCounts = new AtomicLong[Outcome.values().length];
+
+    /**
+     * Constructs a new ingestor.
+     * @param dedupWindow the window remembering recent event IDs
+     */
+    public IdempotentIngestor(EventDedupWindow dedupWindow) {
+        this.dedupWindow = dedupWindow;
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            outcomeCounts[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Applies a report that a spot is occupied. If the spot is held by a different vehicle,
+     * that occupation is ended first.
+     * @param eventId the ID of the report
+     * @param spotSeq the report's sequence number for this spot, or 0 if unsequenced
+     * @param lot the parking lot, or null if unknown
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle occupying the spot
+     * @param startTime the time the vehicle was detected, or null for now
+     * @return the outcome
+     */
+    public Outcome occupied(long eventId, long spotSeq, ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        return apply(eventId, spotSeq, lot, row, col, vehicleId, startTime);
+    }
+
+    /**
+     * Applies a report that a spot is vacant.
+     * @param eventId the ID of the report
+     * @param spotSeq the report's sequence number for this spot, or 0 if unsequenced
+     * @param lot the parking lot, or null if unknown
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @return the outcome
+     */
+    public Outcome vacant(long eventId, long spotSeq, ParkingLot lot, int row, int col) {
+        return apply(eventId, spotSeq, lot, row, col, null, null);
+    }
+
+    /**
+     * Gets how many reports had the given outcome.
+     * @param outcome the outcome
+     * @return the number of reports
+     */
+    public long getCount(Outcome outcome) {
+        return outcomeCounts[outcome.ordinal()].get();
+    }
+
+    private Outcome apply(long eventId, long spotSeq, ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        Outcome outcome;
+        if (lot == null || !GUIUtils.isValidCoordinates(row, col, lot.getRows(), lot.getCols())) {
+            outcome = Outcome.INVALID;
+        } else if (!dedupWindow.markSeen(eventId)) {
+            outcome = Outcome.DUPLICATE;
+        } else {
+            outcome = applyState(spotSeq, lot, row, col, vehicleId, startTime);
+        }
+        outcomeCounts[outcome.ordinal()].incrementAndGet();
+        return outcome;
+    }
+
+    /**
+     * Brings a spot into the reported state unless a newer report was already applied.
+     * @param vehicleId the reported vehicle, or null for vacant
+     */
+    private Outcome applyState(long spotSeq, ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        long[] sequences = spotSequences.computeIfAbsent(lot, l -> {
+            long[] initial = new long[l.getTotalSpots()];
+            Arrays.fill(initial, Long.MIN_VALUE);
+            return initial;
+        });
+        int index = row * lot.getCols() + col;
+        synchronized (lot) {
+            if (spotSeq != 0) {
+                if (spotSeq <= sequences[index]) {
+                    return Outcome.STALE;
+                }
+                sequences[index] = spotSeq;
+            }
+
+            ParkingSpot spot = lot.getSpot(row, col);
+            if (vehicleId == null) {
+                return spot.isOccupied() && lot.vacateSpot(row, col) ? Outcome.APPLIED : Outcome.UNCHANGED;
+            }
+            if (spot.isOccupied()) {
+                if (vehicleId.equals(spot.getVehicleId())) {
+                    return Outcome.UNCHANGED;
+                }
+                lot.vacateSpot(row, col);
+            }
+            lot.occupySpot(row, col, vehicleId, startTime != null ? startTime : LocalDateTime.now());
+            return Outcome.APPLIED;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.*;
+
+/**
+ * An overview of all parking lots, painted as one small tile per lot.
+ * Each tile shows the lot's availability, its current rate and an occupancy heat color.
+ * Tiles only use the per-lot counters (available spots, current rate), never spot-level
+ * data, so lazily loaded lots stay unloaded and thousands of lots can be displayed.
+ *
+ * The dashboard is registered as a ParkingLotListener. Change events only mark the lot's
+ * tile dirty; a timer on the Event Dispatch Thread repaints dirty tiles a few times per
+ * second, so bursts of events cost a single repaint per tile.
+ */
+public class LotDashboard extends JComponent implements ParkingLotListener, Scrollable {
+    private static final int TILE_WIDTH = 160;
+    private static final int TILE_HEIGHT = 72;
+    private static final int GAP = 6;
+    private static final int REPAINT_INTERVAL_MILLIS = 100;
+
+    private final List<ParkingLot> lots = new ArrayList<>();
+    private final Map<ParkingLot, Integer> tileIndexes = new ConcurrentHashMap<>();
+    private final Set<ParkingLot> dirtyLots = ConcurrentHashMap.newKeySet();
+    private final Timer repaintTimer;
+    private ParkingLot selectedLot;
+    private ActionListener tileClickListener;
+
+    /**
+     * Constructs a new, empty dashboard. Register it with
+     * {@link ParkingLotManager#addParkingLotListener(ParkingLotListener)} to populate it.
+     */
+    public LotDashboard() {
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setToolTipText("");
+
+        repaintTimer = new Timer(REPAINT_INTERVAL_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                repaintDirtyTiles();
+            }
+        });
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                ParkingLot lot = getLotAt(e.getPoint());
+                if (lot != null && tileClickListener != null) {
+                    tileClickListener.actionPerformed(new ActionEvent(LotDashboard.this, ActionEvent.ACTION_PERFORMED, lot.getName()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the listener notified when a tile is clicked. The action command is the lot name.
+     * @param listener the action listener to handle tile clicks
+     */
+    public void setTileClickListener(ActionListener listener) {
+        this.tileClickListener = listener;
+    }
+
+    /**
+     * Marks a lot's tile as selected. Must be called on the EDT.
+     * @param lot the selected lot, or null for none
+     */
+    public void setSelectedLot(ParkingLot lot) {
+        if (lot != selectedLot) {
+            repaintTile(selectedLot);
+            selectedLot = lot;
+            repaintTile(lot);
+        }
+    }
+
+    @Override
+    public void lotAdded(final ParkingLot lot) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (!tileIndexes.containsKey(lot)) {
+                    tileIndexes.put(lot, lots.size());
+                    lots.add(lot);
+                    revalidate();
+                    repaintTile(lot);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        dirtyLots.add(lot);
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        dirtyLots.add(lot);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        repaintTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        repaintTimer.stop();
+        super.removeNotify();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setColor(getBackground());
+            Rectangle clip = g2.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            // Only tiles in the visible rows intersecting the clip are painted
+            int columns = getColumns();
+            int firstRow = Math.max(0, (clip.y - GAP) / (TILE_HEIGHT + GAP));
+            int lastRow = (clip.y + clip.height) / (TILE_HEIGHT + GAP);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = 0; col < columns; col++) {
+                    int index = row * columns + col;
+                    if (index >= lots.size()) {
+                        return;
+                    }
+                    Rectangle bounds = getTileBounds(index);
+                    if (bounds.intersects(clip)) {
+                        paintTile(g2, lots.get(index), bounds);
+                    }
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Paints one lot tile: heat-colored background, name, availability, rate and an occupancy bar.
+     */
+    private void paintTile(Graphics2D g, ParkingLot lot, Rectangle bounds) {
+        int total = lot.getTotalSpots();
+        int available = lot.getAvailableSpots();
+        double occupancy = total == 0 ? 0 : (double) (total - available) / total;
+
+        g.setColor(heatColor(occupancy));
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(lot == selectedLot ? GUIUtils.SPOT_HIGHLIGHT : Color.DARK_GRAY);
+        g.setStroke(new BasicStroke(lot == selectedLot ? 3 : 1));
+        g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+
+        g.setColor(GUIUtils.TEXT_DARK);
+        g.setFont(GUIUtils.FONT_BOLD_10.deriveFont(12f));
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(truncate(lot.getName(), metrics, bounds.width - 12), bounds.x + 6, bounds.y + 16);
+        g.setFont(GUIUtils.FONT_PLAIN_12);
+        g.drawString("Available: " + available + "/" + total, bounds.x + 6, bounds.y + 34);
+        g.drawString(String.format("Rate: $%.2f/hour", lot.getCurrentHourlyRate()), bounds.x + 6, bounds.y + 50);
+
+        int barWidth = bounds.width - 12;
+        g.setColor(Color.WHITE);
+        g.fillRect(bounds.x + 6, bounds.y + 58, barWidth, 6);
+        g.setColor(GUIUtils.TEXT_MEDIUM);
+        g.fillRect(bounds.x + 6, bounds.y + 58, (int) Math.round(barWidth * occupancy), 6);
+    }
+
+    /**
+     * Maps an occupancy ratio to a light color from green (empty) over yellow to red (full).
+     */
+    private static Color heatColor(double occupancy) {
+        float hue = (float) (1.0 - occupancy) / 3f;
+        return Color.getHSBColor(hue, 0.35f, 1.0f);
+    }
+
+    private static String truncate(String text, FontMetrics metrics, int width) {
+        if (metrics.stringWidth(text) <= width) {
+            return text;
+        }
+        String ellipsis = "...";
+        int end = text.length();
+        while (end > 0 && metrics.stringWidth(text.substring(0, end) + ellipsis) > width) {
+            end--;
+        }
+        return text.substring(0, end) + ellipsis;
+    }
+
+    /**
+     * Repaints the tiles of lots that changed since the last timer tick.
+     */
+    private void repaintDirtyTiles() {
+        for (ParkingLot lot : dirtyLots) {
+            dirtyLots.remove(lot);
+            repaintTile(lot);
+        }
+    }
+
+    private void repaintTile(ParkingLot lot) {
+        Integer index = lot != null ? tileIndexes.get(lot) : null;
+        if (index != null) {
+            repaint(getTileBounds(index));
+        }
+    }
+
+    /**
+     * Gets the lot whose tile contains a point.
+     * @param point the point in component coordinates
+     * @return the lot, or null if the point is not on a tile
+     */
+    public ParkingLot getLotAt(Point point) {
+        int col = (point.x - GAP) / (TILE_WIDTH + GAP);
+        int row = (point.y - GAP) / (TILE_HEIGHT + GAP);
+        if (point.x < GAP || point.y < GAP || col >= getColumns()) {
+            return null;
+        }
+        int index = row * getColumns() + col;
+        if (index >= lots.size() || !getTileBounds(index).contains(point)) {
+            return null;
+        }
+        return lots.get(index);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        ParkingLot lot = getLotAt(event.getPoint());
+        if (lot == null) {
+            return null;
+        }
+        return lot.getName() + " - base rate $" + String.format("%.2f", lot.getHourlyRate()) + "/hour";
+    }
+
+    private int getColumns() {
+        return Math.max(1, (getWidth() - GAP) / (TILE_WIDTH + GAP));
+    }
+
+    private Rectangle getTileBounds(int index) {
+        int columns = getColumns();
+        int row = index / columns;
+        int col = index % columns;
+        return new Rectangle(GAP + col * (TILE_WIDTH + GAP), GAP + row * (TILE_HEIGHT + GAP), TILE_WIDTH, TILE_HEIGHT);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int width = getParent() != null ? getParent().getWidth() : 0;
+        int columns = Math.max(1, (width - GAP) / (TILE_WIDTH + GAP));
+        int rows = (lots.size() + columns - 1) / columns;
+        return new Dimension(GAP + columns * (TILE_WIDTH + GAP), GAP + rows * (TILE_HEIGHT + GAP));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? TILE_HEIGHT + GAP : TILE_WIDTH + GAP;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
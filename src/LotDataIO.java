@@ -0,0 +1,699 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Imports and exports lot layouts and current occupancy in bulk.
+ *
+ * The CSV format has one record per line, with all LOT records describing lots and
+ * SPOT records describing occupied spots (start times are TimeUtils epoch milliseconds):
+ * <pre>
+ *   LOT,Downtown Mall,3.5,4,6
+ *   SPOT,Downtown Mall,0,0,ABC123,1760000000000
+ * </pre>
+ * Fields containing commas or quotes are quoted CSV-style; line breaks inside fields are not
+ * supported. Lines that are not LOT or SPOT records, such as # comments, are ignored.
+ *
+ * The binary format stores one record per lot followed by a footer with the offset of
+ * every record, so lots can be decoded independently.
+ *
+ * Both readers memory-map the file in chunks and parse the chunks in parallel directly
+ * from the mapped bytes. Lots are fully populated before they are returned, so adding
+ * them to a ParkingLotManager afterwards does not replay every occupation to listeners.
+ */
+public class LotDataIO {
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final int BINARY_MAGIC = 0x504C4F54; // "PLOT"
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_TRAILER_SIZE = 8 + 4;
+
+    /**
+     * Parses the part of a mapped chunk that belongs to it.
+     */
+    private interface ChunkParser {
+        void parse(ByteBuffer buffer, int begin, int end, long baseOffset) throws IOException;
+    }
+
+    /**
+     * An occupied spot copied from a lot, so it can be encoded without holding the lot's lock.
+     */
+    private static class OccupiedSpot {
+        final int row;
+        final int col;
+        final String vehicleId;
+        final long startMillis;
+
+        OccupiedSpot(int row, int col, String vehicleId, long startMillis) {
+            this.row = row;
+            this.col = col;
+            this.vehicleId = vehicleId;
+            this.startMillis = startMillis;
+        }
+    }
+
+    /**
+     * Reads lots and their occupied spots from a CSV file.
+     * @param path the file to read
+     * @return the lots in file order
+     * @throws IOException if the file cannot be read, is malformed or describes a lot twice
+     */
+    public static List<ParkingLot> readCsv(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // First pass creates the lots, second pass occupies their spots
+            ConcurrentSkipListMap<Long, ParkingLot> lotsByOffset = new ConcurrentSkipListMap<>();
+            forEachCsvChunk(channel, (buffer, begin, end, baseOffset) -> {
+                CsvCursor cursor = new CsvCursor(buffer, baseOffset);
+                for (int line = begin, next; line < end; line = next) {
+                    next = cursor.nextLine(line);
+                    if (cursor.startsWith(line, "LOT,")) {
+                        cursor.skipField();
+                        ParkingLot lot = new ParkingLot(cursor.nextString(), Double.parseDouble(cursor.nextString()),
+                            (int) cursor.nextLong(), (int) cursor.nextLong());
+                        lotsByOffset.put(baseOffset + line, lot);
+                    }
+                }
+            });
+
+            Map<String, ParkingLot> lotsByName = new ConcurrentHashMap<>();
+            for (ParkingLot lot : lotsByOffset.values()) {
+                if (lotsByName.putIfAbsent(lot.getName(), lot) != null) {
+                    throw new IOException("Duplicate lot " + lot.getName() + " in " + path);
+                }
+            }
+            forEachCsvChunk(channel, (buffer, begin, end, baseOffset) -> {
+                CsvCursor cursor = new CsvCursor(buffer, baseOffset);
+                ParkingLot lot = null;
+                for (int line = begin, next; line < end; line = next) {
+                    next = cursor.nextLine(line);
+                    if (cursor.startsWith(line, "SPOT,")) {
+                        cursor.skipField();
+                        // Spots of a lot are usually contiguous, so only decode the name when it changes
+                        if (!cursor.nextFieldEquals(lot == null ? null : lot.getName())) {
+                            String name = cursor.currentString();
+                            lot = lotsByName.get(name);
+                            if (lot == null) {
+                                throw cursor.error("Unknown lot " + name);
+                            }
+                        }
+                        int row = (int) cursor.nextLong();
+                        int col = (int) cursor.nextLong();
+                        String vehicleId = cursor.nextString();
+                        long startMillis = cursor.nextLong();
+                        if (!lot.occupySpot(row, col, vehicleId, TimeUtils.fromEpochMillis(startMillis))) {
+                            throw cursor.error("Spot " + row + "," + col + " of " + lot.getName() + " is invalid or occupied twice");
+                        }
+                    }
+                }
+            });
+            return new ArrayList<>(lotsByOffset.values());
+        }
+    }
+
+    /**
+     * Writes lots and their occupied spots to a CSV file.
+     * @param path the file to write
+     * @param lots the lots to export
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCsv(Path path, Collection<ParkingLot> lots) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BufferedWriter out = new BufferedWriter(channel);
+            for (ParkingLot lot : lots) {
+                out.reserve(MAX_LINE_LENGTH);
+                out.putAscii("LOT,");
+                out.putCsvField(lot.getName());
+                out.putAscii("," + lot.getHourlyRate() + ",");
+                out.putLong(lot.getRows());
+                out.putByte((byte) ',');
+                out.putLong(lot.getCols());
+                out.putByte((byte) '\n');
+            }
+            for (ParkingLot lot : lots) {
+                for (OccupiedSpot spot : copyOccupiedSpots(lot)) {
+                    out.reserve(MAX_LINE_LENGTH);
+                    out.putAscii("SPOT,");
+                    out.putCsvField(lot.getName());
+                    out.putByte((byte) ',');
+                    out.putLong(spot.row);
+                    out.putByte((byte) ',');
+                    out.putLong(spot.col);
+                    out.putByte((byte) ',');
+                    out.putCsvField(spot.vehicleId);
+                    out.putByte((byte) ',');
+                    out.putLong(spot.startMillis);
+                    out.putByte((byte) '\n');
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads lots and their occupied spots from a binary file.
+     * @param path the file to read
+     * @return the lots in file order
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static List<ParkingLot> readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8 + BINARY_TRAILER_SIZE) {
+                throw new IOException("Not a lot data file: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(8);
+            ByteBuffer trailer = ByteBuffer.allocate(BINARY_TRAILER_SIZE);
+            readFully(channel, header, 0);
+            readFully(channel, trailer, size - BINARY_TRAILER_SIZE);
+            if (header.getInt(0) != BINARY_MAGIC || trailer.getInt(8) != BINARY_MAGIC) {
+                throw new IOException("Not a lot data file: " + path);
+            }
+            if (header.getInt(4) != BINARY_VERSION) {
+                throw new IOException("Unsupported lot data version " + header.getInt(4));
+            }
+
+            long footerOffset = trailer.getLong(0);
+            if (footerOffset < 8 || footerOffset > size - BINARY_TRAILER_SIZE - 4) {
+                throw new IOException("Corrupt lot data file " + path + ": footer offset " + footerOffset + " out of range");
+            }
+            long footerSize = size - BINARY_TRAILER_SIZE - footerOffset;
+            MappedByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, footerSize);
+            int count = footer.getInt();
+            if (count < 0 || 4 + 8L * count > footerSize) {
+                throw new IOException("Corrupt lot data file " + path + ": " + count + " lots do not fit the footer");
+            }
+            long[] offsets = new long[count + 1];
+            offsets[count] = footerOffset;
+            for (int i = 0; i < count; i++) {
+                offsets[i] = footer.getLong();
+                if (offsets[i] < (i == 0 ? 8 : offsets[i - 1]) || offsets[i] > footerOffset) {
+                    throw new IOException("Corrupt lot data file " + path + ": lot offset " + offsets[i] + " out of range");
+                }
+            }
+
+            // Decode consecutive lots in groups of roughly one chunk each
+            ParkingLot[] lots = new ParkingLot[count];
+            List<Callable<Void>> tasks = new ArrayList<>();
+            int first = 0;
+            while (first < count) {
+                int last = first + 1;
+                while (last < count && offsets[last + 1] - offsets[first] <= CHUNK_SIZE) {
+                    last++;
+                }
+                int from = first;
+                int to = last;
+                tasks.add(() -> {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offsets[from],
+                        offsets[to] - offsets[from]);
+                    for (int i = from; i < to; i++) {
+                        lots[i] = readLot(buffer, null);
+                    }
+                    return null;
+                });
+                first = last;
+            }
+            invokeAll(tasks);
+            return new ArrayList<>(Arrays.asList(lots));
+        }
+    }
+
+    /**
+     * Writes lots and their occupied spots to a binary file.
+     * @param path the file to write
+     * @param lots the lots to export
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeBinary(Path path, Collection<ParkingLot> lots) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BufferedWriter out = new BufferedWriter(channel);
+            out.reserve(8);
+            out.buffer.putInt(BINARY_MAGIC);
+            out.buffer.putInt(BINARY_VERSION);
+            long[] offsets = new long[lots.size()];
+            int index = 0;
+            for (ParkingLot lot : lots) {
+                offsets[index++] = out.position();
+                writeLot(out, lot);
+            }
+            long footerOffset = out.position();
+            out.reserve(4);
+            out.buffer.putInt(offsets.length);
+            for (long offset : offsets) {
+                out.reserve(8);
+                out.buffer.putLong(offset);
+            }
+            out.reserve(BINARY_TRAILER_SIZE);
+            out.buffer.putLong(footerOffset);
+            out.buffer.putInt(BINARY_MAGIC);
+            out.flush();
+        }
+    }
+
+    /**
+     * Encodes a single lot record: name, rate, rows, cols, occupied count and occupied spots.
+     */
+    private static void writeLot(BufferedWriter out, ParkingLot lot) throws IOException {
+        byte[] name = lot.getName().getBytes(StandardCharsets.UTF_8);
+        out.reserve(2 + name.length + 8 + 4 + 4 + 4);
+        out.buffer.putShort((short) name.length);
+        out.buffer.put(name);
+        out.buffer.putDouble(lot.getHourlyRate());
+        out.buffer.putInt(lot.getRows());
+        out.buffer.putInt(lot.getCols());
+        List<OccupiedSpot> occupied = copyOccupiedSpots(lot);
+        out.buffer.putInt(occupied.size());
+        for (OccupiedSpot spot : occupied) {
+            byte[] vehicleId = spot.vehicleId.getBytes(StandardCharsets.UTF_8);
+            if (vehicleId.length > 255) {
+                throw new IOException("Vehicle ID too long: " + spot.vehicleId);
+            }
+            out.reserve(4 + 4 + 8 + 1 + vehicleId.length);
+            out.buffer.putInt(spot.row);
+            out.buffer.putInt(spot.col);
+            out.buffer.putLong(spot.startMillis);
+            out.buffer.put((byte) vehicleId.length);
+            out.buffer.put(vehicleId);
+        }
+    }
+
+    /**
+     * Copies the occupied spots of a lot under its lock, so the caller can write them to
+     * storage without blocking changes to the lot.
+     */
+    private static List<OccupiedSpot> copyOccupiedSpots(ParkingLot lot) {
+        synchronized (lot) {
+            List<OccupiedSpot> occupied = new ArrayList<>(lot.getOccupiedSpots());
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    if (spot.isOccupied()) {
+                        occupied.add(new OccupiedSpot(row, col, spot.getVehicleId(),
+                            TimeUtils.toEpochMillis(spot.getOccupationStartTime())));
+                    }
+                }
+            }
+            return occupied;
+        }
+    }
+
+    /**
+     * Creates a lot from the first record of a binary file without loading its spots.
+     * The returned lot restores its grid through the residency manager on first access.
+     * @param path a binary file written by {@link #writeBinary(Path, Collection)}
+     * @param residency the residency manager that will load the lot's grid
+     * @return the unloaded lot, with its summary counts available
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    static ParkingLot readLotHeader(Path path, LotResidencyManager residency) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, path);
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            return new ParkingLot(new String(name, StandardCharsets.UTF_8), buffer.getDouble(),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), residency);
+        }
+    }
+
+    /**
+     * Restores the occupied spots stored in the first record of a binary file into a lot
+     * whose grid is being loaded. Listeners are not notified.
+     * @param path a binary file written by {@link #writeBinary(Path, Collection)}
+     * @param target the lot to restore into, which must have the stored name and layout
+     * @throws IOException if the file cannot be read, is malformed or describes another lot
+     */
+    static void restoreLot(Path path, ParkingLot target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, path);
+            readLot(buffer, target);
+        }
+    }
+
+    /**
+     * Verifies the magic number and version at the start of a binary file and skips them.
+     */
+    private static void checkHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.remaining() < 8 || buffer.getInt() != BINARY_MAGIC) {
+            throw new IOException("Not a lot data file: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported lot data version " + version);
+        }
+    }
+
+    /**
+     * Decodes a single lot record at the buffer's position.
+     * @param buffer the buffer positioned at the record
+     * @param target an existing lot to restore the spots into, or null to create a new lot
+     * @return the decoded lot
+     */
+    private static ParkingLot readLot(ByteBuffer buffer, ParkingLot target) throws IOException {
+        byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(name);
+        String lotName = new String(name, StandardCharsets.UTF_8);
+        double hourlyRate = buffer.getDouble();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        ParkingLot lot = target;
+        if (lot == null) {
+            lot = new ParkingLot(lotName, hourlyRate, rows, cols);
+        } else if (!lot.getName().equals(lotName) || lot.getRows() != rows || lot.getCols() != cols) {
+            throw new IOException("Stored lot " + lotName + " does not match " + lot.getName());
+        }
+        int occupied = buffer.getInt();
+        byte[] vehicleId = new byte[255];
+        for (int i = 0; i < occupied; i++) {
+            int row = buffer.getInt();
+            int col = buffer.getInt();
+            long startMillis = buffer.getLong();
+            int length = Byte.toUnsignedInt(buffer.get());
+            buffer.get(vehicleId, 0, length);
+            String id = new String(vehicleId, 0, length, StandardCharsets.UTF_8);
+            boolean applied = target == null
+                ? lot.occupySpot(row, col, id, TimeUtils.fromEpochMillis(startMillis))
+                : lot.restoreSpot(row, col, id, TimeUtils.fromEpochMillis(startMillis));
+            if (!applied) {
+                throw new IOException("Spot " + row + "," + col + " of " + lot.getName() + " is invalid or occupied twice");
+            }
+        }
+        return lot;
+    }
+
+    /**
+     * Maps the file in chunks and parses them in parallel. Each chunk owns the lines that
+     * start inside it; the mapping extends past the chunk so its last line can be completed.
+     */
+    private static void forEachCsvChunk(FileChannel channel, ChunkParser parser) throws IOException {
+        long size = channel.size();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long start = 0; start < size; start += CHUNK_SIZE) {
+            long chunkStart = start;
+            tasks.add(() -> {
+                // Map one byte early so a line starting exactly at the chunk boundary is recognised
+                long mapStart = Math.max(0, chunkStart - 1);
+                long mapLength = Math.min(size - mapStart, CHUNK_SIZE + 1 + MAX_LINE_LENGTH);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapLength);
+                int begin = 0;
+                if (chunkStart > 0) {
+                    while (begin < buffer.limit() && buffer.get(begin) != '\n') {
+                        begin++;
+                    }
+                    begin++;
+                }
+                int end = (int) Math.min(mapLength, chunkStart + CHUNK_SIZE - mapStart);
+                parser.parse(buffer, begin, end, mapStart);
+                return null;
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    /**
+     * Runs tasks on the common fork/join pool and rethrows the first failure.
+     */
+    private static void invokeAll(List<Callable<Void>> tasks) throws IOException {
+        for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading lot data", e);
+            } catch (ExecutionException e) {
+                // The pool may wrap the task's exception, so look for the original IOException
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                throw new IOException("Malformed lot data: " + e.getCause(), e.getCause());
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * Reads CSV fields directly from a mapped buffer without copying whole lines.
+     * A cursor is reused for every line of a chunk.
+     */
+    private static class CsvCursor {
+        private final ByteBuffer buffer;
+        private final long baseOffset;
+        private byte[] scratch = new byte[256];
+        private int lineStart;
+        private int pos;
+        private int fieldStart;
+        private int fieldLength;
+
+        CsvCursor(ByteBuffer buffer, long baseOffset) {
+            this.buffer = buffer;
+            this.baseOffset = baseOffset;
+        }
+
+        /**
+         * Finds the start of the line following the one at the given position.
+         */
+        int nextLine(int line) throws IOException {
+            int end = line;
+            while (end < buffer.limit() && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end == buffer.limit() && end - line >= MAX_LINE_LENGTH) {
+                lineStart = line;
+                throw error("Line too long");
+            }
+            return end + 1;
+        }
+
+        /**
+         * Checks whether the line at the given position starts with a record prefix,
+         * and positions the cursor at the line's first field if it does.
+         */
+        boolean startsWith(int line, String prefix) {
+            if (line + prefix.length() > buffer.limit()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buffer.get(line + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            lineStart = line;
+            pos = line;
+            return true;
+        }
+
+        /**
+         * Advances over the next field, leaving its unescaped bytes in the scratch buffer.
+         */
+        void skipField() throws IOException {
+            if (pos >= buffer.limit() || buffer.get(pos) == '\n') {
+                throw error("Missing field");
+            }
+            fieldLength = 0;
+            if (buffer.get(pos) == '"') {
+                pos++;
+                while (true) {
+                    if (pos >= buffer.limit()) {
+                        throw error("Unterminated quoted field");
+                    }
+                    byte b = buffer.get(pos++);
+                    if (b == '"') {
+                        if (pos < buffer.limit() && buffer.get(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                    append(b);
+                }
+            } else {
+                fieldStart = pos;
+                while (pos < buffer.limit()) {
+                    byte b = buffer.get(pos);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    append(b);
+                    pos++;
+                }
+            }
+            if (pos < buffer.limit() && buffer.get(pos) == ',') {
+                pos++;
+            }
+        }
+
+        /**
+         * Reads the next field as a string.
+         */
+        String nextString() throws IOException {
+            skipField();
+            return currentString();
+        }
+
+        /**
+         * Decodes the field most recently read.
+         */
+        String currentString() {
+            return new String(scratch, 0, fieldLength, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads the next field and compares it to a string (which may be null) without decoding it.
+         */
+        boolean nextFieldEquals(String value) throws IOException {
+            skipField();
+            if (value == null || fieldLength != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < fieldLength; i++) {
+                if (scratch[i] != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads the next field as a decimal integer.
+         */
+        long nextLong() throws IOException {
+            skipField();
+            if (fieldLength == 0) {
+                throw error("Empty number");
+            }
+            boolean negative = scratch[0] == '-';
+            long value = 0;
+            for (int i = negative ? 1 : 0; i < fieldLength; i++) {
+                int digit = scratch[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw error("Invalid number " + currentString());
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        IOException error(String message) {
+            return new IOException(message + " in record at byte offset " + (baseOffset + lineStart));
+        }
+
+        private void append(byte b) {
+            if (fieldLength == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[fieldLength++] = b;
+        }
+    }
+
+    /**
+     * Accumulates output in a large direct buffer and writes it to a channel when full.
+     */
+    private static class BufferedWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final byte[] digits = new byte[20];
+        private long written;
+
+        BufferedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Ensures the buffer has room for the given number of bytes.
+         */
+        void reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Gets the file offset of the next byte to be written.
+         */
+        long position() {
+            return written + buffer.position();
+        }
+
+        void putByte(byte b) {
+            buffer.put(b);
+        }
+
+        void putAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+        }
+
+        void putLong(long value) {
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int count = 0;
+            do {
+                digits[count++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (count > 0) {
+                buffer.put(digits[--count]);
+            }
+        }
+
+        void putCsvField(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length * 2 + 2 > MAX_LINE_LENGTH / 4) {
+                throw new IOException("Field too long: " + value);
+            }
+            if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                throw new IOException("Line breaks are not supported in field: " + value);
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+                buffer.put(bytes);
+                return;
+            }
+            buffer.put((byte) '"');
+            for (byte b : bytes) {
+                if (b == '"') {
+                    buffer.put((byte) '"');
+                }
+                buffer.put(b);
+            }
+            buffer.put((byte) '"');
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
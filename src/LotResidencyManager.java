@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the spot grids of parking lots within a memory budget.
+ * Each managed lot is stored as a single-lot binary file (see {@link LotDataIO}) in a
+ * directory. Lots opened from that directory start without a grid and load it on first
+ * access. Whenever the resident grids exceed the budget, a background thread evicts grids,
+ * fully empty lots first (they reload without touching storage) and then the least recently
+ * used. Optionally, grids that have not been touched for a while are evicted as well.
+ *
+ * The budget is counted in spots. Summary information such as a lot's available spots
+ * never requires its grid. Listeners that scan spots when they are registered (see
+ * {@link ParkingLotListener#lotAdded(ParkingLot)}) load every lot they observe.
+ */
+public class LotResidencyManager {
+    private static final String FILE_SUFFIX = ".lot";
+
+    private final Path directory;
+    private final long maxResidentSpots;
+    private final Set<ParkingLot> resident = ConcurrentHashMap.newKeySet();
+    private final List<ParkingLot> managed = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong residentSpots = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * A resident lot with the values it is ranked by, read once before sorting so that
+     * concurrent changes cannot reorder it during the sort.
+     */
+    private static class Candidate {
+        final ParkingLot lot;
+        final boolean occupied;
+        final long lastAccessNanos;
+
+        Candidate(ParkingLot lot) {
+            this.lot = lot;
+            this.occupied = lot.getOccupiedSpots() > 0;
+            this.lastAccessNanos = lot.getLastAccessNanos();
+        }
+    }
+
+    /**
+     * Constructs a new residency manager.
+     * @param directory the directory holding the stored lots
+     * @param maxResidentSpots the maximum number of spots kept in memory across all managed lots
+     * @throws IOException if the directory cannot be created
+     */
+    public LotResidencyManager(Path directory, long maxResidentSpots) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxResidentSpots = maxResidentSpots;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lot-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens every lot stored in the directory without loading any grid.
+     * @return the stored lots, ready to be added to a ParkingLotManager
+     * @throws IOException if the directory or a lot header cannot be read
+     */
+    public List<ParkingLot> openStoredLots() throws IOException {
+        List<ParkingLot> lots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                lots.add(LotDataIO.readLotHeader(file, this));
+            }
+        }
+        lots.sort(Comparator.comparing(ParkingLot::getName));
+        managed.addAll(lots);
+        return lots;
+    }
+
+    /**
+     * Places an in-memory lot under this manager so its grid can be stored and evicted.
+     * @param lot the lot to manage
+     */
+    public void manage(ParkingLot lot) {
+        synchronized (lot) {
+            lot.setResidency(this);
+            managed.add(lot);
+            if (lot.isLoaded()) {
+                loaded(lot);
+            }
+        }
+    }
+
+    /**
+     * Starts evicting grids that have not been accessed within the given time.
+     * @param idleTimeout how long a grid may stay untouched before it is evicted
+     */
+    public void start(Duration idleTimeout) {
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(() -> evictIdle(idleTimeout), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background eviction. Does not save resident grids; see {@link #saveAll()}.
+     */
+    public void stop() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Saves every resident grid that changed since it was loaded.
+     * @throws IOException if a grid cannot be saved
+     */
+    public void saveAll() throws IOException {
+        List<ParkingLot> lots;
+        synchronized (managed) {
+            lots = new ArrayList<>(managed);
+        }
+        for (ParkingLot lot : lots) {
+            lot.save();
+        }
+    }
+
+    /**
+     * Gets the number of spots currently held in memory by managed lots.
+     * @return the resident spot count
+     */
+    public long getResidentSpots() {
+        return residentSpots.get();
+    }
+
+    /**
+     * Gets the number of managed lots whose grid is in memory.
+     * @return the resident lot count
+     */
+    public int getResidentLotCount() {
+        return resident.size();
+    }
+
+    /**
+     * Evicts every grid that has not been accessed within the given time.
+     * @param idleTimeout the maximum idle time
+     */
+    public void evictIdle(Duration idleTimeout) {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        for (ParkingLot lot : new ArrayList<>(resident)) {
+            if (lot.getLastAccessNanos() - cutoff < 0) {
+                evict(lot);
+            }
+        }
+    }
+
+    /**
+     * Restores a lot's stored spots into its freshly created grid. Called under the lot's lock.
+     * @param lot the lot being loaded
+     * @throws IOException if the lot cannot be read
+     */
+    void load(ParkingLot lot) throws IOException {
+        LotDataIO.restoreLot(fileFor(lot), lot);
+    }
+
+    /**
+     * Writes a lot's grid to storage, replacing the previous file atomically. Called under the lot's lock.
+     * @param lot the lot to save
+     * @throws IOException if the lot cannot be written
+     */
+    void save(ParkingLot lot) throws IOException {
+        Path file = fileFor(lot);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        LotDataIO.writeBinary(temp, Collections.singletonList(lot));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Records that a lot's grid became resident and schedules eviction if over budget.
+     * Called under the lot's lock.
+     * @param lot the loaded lot
+     */
+    void loaded(ParkingLot lot) {
+        if (resident.add(lot) && residentSpots.addAndGet(lot.getTotalSpots()) > maxResidentSpots) {
+            evictor.execute(this::enforceBudget);
+        }
+    }
+
+    /**
+     * Records that a lot's grid was dropped. Called under the lot's lock.
+     * @param lot the evicted lot
+     */
+    void evicted(ParkingLot lot) {
+        if (resident.remove(lot)) {
+            residentSpots.addAndGet(-lot.getTotalSpots());
+        }
+    }
+
+    /**
+     * Evicts grids until the resident spots fit the budget, empty lots first, then least recently used.
+     */
+    private void enforceBudget() {
+        if (residentSpots.get() <= maxResidentSpots) {
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (ParkingLot lot : resident) {
+            candidates.add(new Candidate(lot));
+        }
+        candidates.sort(Comparator.comparing((Candidate candidate) -> candidate.occupied)
+            .thenComparingLong(candidate -> candidate.lastAccessNanos));
+        for (Candidate candidate : candidates) {
+            if (residentSpots.get() <= maxResidentSpots) {
+                break;
+            }
+            evict(candidate.lot);
+        }
+    }
+
+    private void evict(ParkingLot lot) {
+        try {
+            lot.evict();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to evict parking lot " + lot.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(ParkingLot lot) {
+        try {
+            return directory.resolve(URLEncoder.encode(lot.getName(), "UTF-8") + FILE_SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            // Every JVM supports UTF-8
+            throw new IllegalStateException(e);
+        }
+    }
+}
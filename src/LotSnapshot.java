@@ -0,0 +1,170 @@
+/**
+ * An immutable, display-ready copy of a parking lot's state.
+ * Snapshots are captured off the Event Dispatch Thread, including formatting of
+ * occupation times, so that the GUI only has to copy values into its components.
+ * Summary snapshots only hold the lot's counters and rates, not its spots.
+ */
+public class LotSnapshot {
+    private final ParkingLot lot;
+    private final String name;
+    private final int rows;
+    private final int cols;
+    private final int availableSpots;
+    private final int totalSpots;
+    private final double hourlyRate;
+    private final double currentHourlyRate;
+    private final boolean[] occupied;
+    private final String[] vehicleIds;
+    private final String[] timeLabels;
+
+    private LotSnapshot(ParkingLot lot, boolean[] occupied, String[] vehicleIds, String[] timeLabels) {
+        this.lot = lot;
+        this.name = lot.getName();
+        this.rows = lot.getRows();
+        this.cols = lot.getCols();
+        this.availableSpots = lot.getAvailableSpots();
+        this.totalSpots = lot.getTotalSpots();
+        this.hourlyRate = lot.getHourlyRate();
+        this.currentHourlyRate = lot.getCurrentHourlyRate();
+        this.occupied = occupied;
+        this.vehicleIds = vehicleIds;
+        this.timeLabels = timeLabels;
+    }
+
+    /**
+     * Captures a consistent snapshot of a lot. May be slow for large or evicted lots,
+     * so it should not be called on the Event Dispatch Thread.
+     * @param lot the parking lot to capture
+     * @return the snapshot
+     */
+    public static LotSnapshot capture(ParkingLot lot) {
+        synchronized (lot) {
+            int size = lot.getTotalSpots();
+            boolean[] occupied = new boolean[size];
+            String[] vehicleIds = new String[size];
+            String[] timeLabels = new String[size];
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    int index = row * lot.getCols() + col;
+                    occupied[index] = spot.isOccupied();
+                    vehicleIds[index] = spot.getVehicleId();
+                    timeLabels[index] = spot.getFormattedOccupationTime();
+                }
+            }
+            return new LotSnapshot(lot, occupied, vehicleIds, timeLabels);
+        }
+    }
+
+    /**
+     * Captures a lot's counters and rates without reading any spot. Cheap even for
+     * lots whose grid is not loaded.
+     * @param lot the parking lot to capture
+     * @return the summary snapshot
+     */
+    public static LotSnapshot captureSummary(ParkingLot lot) {
+        return new LotSnapshot(lot, null, null, null);
+    }
+
+    /**
+     * Checks whether this snapshot holds the state of the lot's spots.
+     * @return true if spot-level methods may be used, false for summary snapshots
+     */
+    public boolean hasSpots() {
+        return occupied != null;
+    }
+
+    /**
+     * Gets the parking lot this snapshot was captured from.
+     * @return the parking lot
+     */
+    public ParkingLot getLot() {
+        return lot;
+    }
+
+    /**
+     * Gets the name of the lot.
+     * @return the lot name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rows in the lot grid.
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in the lot grid.
+     * @return the number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of available spots at capture time.
+     * @return the available spot count
+     */
+    public int getAvailableSpots() {
+        return availableSpots;
+    }
+
+    /**
+     * Gets the total number of spots.
+     * @return the total spot count
+     */
+    public int getTotalSpots() {
+        return totalSpots;
+    }
+
+    /**
+     * Gets the lot's base hourly rate.
+     * @return the base cost per hour
+     */
+    public double getHourlyRate() {
+        return hourlyRate;
+    }
+
+    /**
+     * Gets the hourly rate charged at capture time.
+     * @return the current cost per hour
+     */
+    public double getCurrentHourlyRate() {
+        return currentHourlyRate;
+    }
+
+    /**
+     * Checks whether a spot was occupied at capture time.
+     * @param row the row index
+     * @param col the column index
+     * @return true if the spot was occupied
+     */
+    public boolean isOccupied(int row, int col) {
+        return occupied[row * cols + col];
+    }
+
+    /**
+     * Gets the vehicle occupying a spot at capture time.
+     * @param row the row index
+     * @param col the column index
+     * @return the vehicle ID, or null if the spot was available
+     */
+    public String getVehicleId(int row, int col) {
+        return vehicleIds[row * cols + col];
+    }
+
+    /**
+     * Gets the formatted occupation time of a spot at capture time.
+     * @param row the row index
+     * @param col the column index
+     * @return the formatted time, or "Available" if the spot was available
+     */
+    public String getTimeLabel(int row, int col) {
+        return timeLabels[row * cols + col];
+    }
+}
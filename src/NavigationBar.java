@@ -1,20 +1,40 @@
 import java.awt.*;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * A navigation bar component that displays parking lot information and controls.
- * Shows the current lot name, available spots count, hourly rate, and provides
- * a dropdown to switch between different parking lots and a refresh button.
+ * Shows the current lot name, available spots count, live hourly rate, and provides
+ * a dropdown to switch between different parking lots, a toggle for the all-lots
+ * overview and a refresh button.
+ * A row below holds the vehicle search box (see {@link VehicleQuery#parse(String)}) and
+ * the choice between showing the current lot as spots or as a heatmap.
  */
 public class NavigationBar extends JPanel {
+    /** Lot view showing one clickable panel per spot. */
+    public static final String VIEW_SPOTS = "Spots";
+    /** Lot view showing a heatmap of average dwell times. */
+    public static final String VIEW_DWELL_HEATMAP = "Dwell Heatmap";
+    /** Lot view showing a heatmap of spot turnover. */
+    public static final String VIEW_TURNOVER_HEATMAP = "Turnover Heatmap";
+
     private JLabel lotNameLabel;
     private JLabel availableSpotsLabel;
     private JLabel hourlyRateLabel;
     private JComboBox<String> lotSelector;
     private JButton refreshButton;
+    private JToggleButton overviewButton;
+    private JTextField searchField;
+    private JLabel searchResultLabel;
+    private JComboBox<String> lotViewSelector;
     private ParkingLot currentLot;
+    private List<String> lotNames = new ArrayList<>();
+    private boolean updatingSelector;
 
     /**
      * Constructs a new NavigationBar with default styling and layout.
@@ -29,7 +49,7 @@ public class NavigationBar extends JPanel {
      * Sets up labels, combo box, and button with appropriate styling.
      */
     private void initializeComponents() {
-        setPreferredSize(new Dimension(800, 60));
+        setPreferredSize(new Dimension(800, 95));
         setBackground(GUIUtils.BACKGROUND_LIGHT);
         setBorder(BorderFactory.createCompoundBorder(
             BorderFactory.createLineBorder(Color.GRAY, 1),
@@ -51,8 +71,24 @@ public class NavigationBar extends JPanel {
         lotSelector.setPreferredSize(GUIUtils.COMBO_BOX_SIZE);
         lotSelector.setFont(GUIUtils.FONT_PLAIN_12);
 
+        // Overview toggle button
+        overviewButton = new JToggleButton("Overview");
+        overviewButton.setPreferredSize(GUIUtils.TOGGLE_BUTTON_SIZE);
+        overviewButton.setFont(GUIUtils.FONT_PLAIN_12);
+
         // Refresh button
         refreshButton = GUIUtils.createButton("Refresh", GUIUtils.BUTTON_SIZE);
+
+        // Vehicle search field and result summary
+        searchField = new JTextField();
+        searchField.setPreferredSize(GUIUtils.SEARCH_FIELD_SIZE);
+        searchField.setFont(GUIUtils.FONT_PLAIN_12);
+        searchField.setToolTipText("Vehicle ID prefix, optionally with >2h and/or in <lot name>");
+        searchResultLabel = GUIUtils.createLabel("", JLabel.LEFT, GUIUtils.FONT_PLAIN_12, GUIUtils.TEXT_MEDIUM);
+
+        // Lot view selector combo box
+        lotViewSelector = new JComboBox<>(new String[] {VIEW_SPOTS, VIEW_DWELL_HEATMAP, VIEW_TURNOVER_HEATMAP});
+        lotViewSelector.setFont(GUIUtils.FONT_PLAIN_12);
     }
 
     /**
@@ -76,22 +112,38 @@ public class NavigationBar extends JPanel {
         rightPanel.setBackground(GUIUtils.BACKGROUND_LIGHT);
         rightPanel.add(new JLabel("Switch Lot:"));
         rightPanel.add(lotSelector);
+        rightPanel.add(overviewButton);
         rightPanel.add(refreshButton);
 
+        // Bottom panel for vehicle search
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        searchPanel.setBackground(GUIUtils.BACKGROUND_LIGHT);
+        searchPanel.add(new JLabel("Search Vehicles:"));
+        searchPanel.add(searchField);
+        searchPanel.add(searchResultLabel);
+        searchPanel.add(Box.createHorizontalStrut(20));
+        searchPanel.add(new JLabel("Lot View:"));
+        searchPanel.add(lotViewSelector);
+
         add(leftPanel, BorderLayout.WEST);
         add(rightPanel, BorderLayout.EAST);
+        add(searchPanel, BorderLayout.SOUTH);
     }
 
     /**
-     * Updates the navigation bar display with information from the specified parking lot.
-     * @param lot the parking lot to display information for, or null to clear the display
+     * Updates the navigation bar display with information from a snapshot of a parking lot.
+     * @param snapshot the snapshot to display, or null to clear the display
      */
-    public void updateParkingLot(ParkingLot lot) {
-        this.currentLot = lot;
-        if (lot != null) {
-            lotNameLabel.setText(lot.getName());
-            availableSpotsLabel.setText("Available: " + lot.getAvailableSpots() + "/" + lot.getTotalSpots());
-            hourlyRateLabel.setText("Rate: $" + String.format("%.2f", lot.getHourlyRate()) + "/hour");
+    public void updateParkingLot(LotSnapshot snapshot) {
+        this.currentLot = snapshot != null ? snapshot.getLot() : null;
+        if (snapshot != null) {
+            lotNameLabel.setText(snapshot.getName());
+            availableSpotsLabel.setText("Available: " + snapshot.getAvailableSpots() + "/" + snapshot.getTotalSpots());
+            String rateText = "Rate: $" + String.format("%.2f", snapshot.getCurrentHourlyRate()) + "/hour";
+            if (snapshot.getCurrentHourlyRate() != snapshot.getHourlyRate()) {
+                rateText += " (base $" + String.format("%.2f", snapshot.getHourlyRate()) + ")";
+            }
+            hourlyRateLabel.setText(rateText);
         } else {
             lotNameLabel.setText("No Parking Lot Selected");
             availableSpotsLabel.setText("");
@@ -101,25 +153,47 @@ public class NavigationBar extends JPanel {
 
     /**
      * Updates the lot selector dropdown with the list of available parking lots.
+     * The items are only rebuilt when the lot names changed, and selection listeners
+     * are not notified of these programmatic changes.
      * @param lots the list of parking lots to populate the dropdown with
      */
     public void updateLotSelector(List<ParkingLot> lots) {
-        lotSelector.removeAllItems();
+        List<String> names = new ArrayList<>();
         for (ParkingLot lot : lots) {
-            lotSelector.addItem(lot.getName());
+            names.add(lot.getName());
         }
-        
-        if (currentLot != null) {
-            lotSelector.setSelectedItem(currentLot.getName());
+
+        updatingSelector = true;
+        try {
+            if (!names.equals(lotNames)) {
+                lotNames = names;
+                lotSelector.removeAllItems();
+                for (String name : names) {
+                    lotSelector.addItem(name);
+                }
+            }
+            if (currentLot != null) {
+                lotSelector.setSelectedItem(currentLot.getName());
+            }
+        } finally {
+            updatingSelector = false;
         }
     }
 
     /**
      * Sets the action listener for the lot selector dropdown.
+     * The listener is only notified of selections made by the user.
      * @param listener the action listener to handle lot selection changes
      */
-    public void setLotSelectorListener(ActionListener listener) {
-        lotSelector.addActionListener(listener);
+    public void setLotSelectorListener(final ActionListener listener) {
+        lotSelector.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!updatingSelector) {
+                    listener.actionPerformed(e);
+                }
+            }
+        });
     }
 
     /**
@@ -130,6 +204,91 @@ public class NavigationBar extends JPanel {
         refreshButton.addActionListener(listener);
     }
 
+    /**
+     * Sets the action listener for the overview toggle button.
+     * @param listener the action listener to handle switching between overview and lot view
+     */
+    public void setOverviewListener(ActionListener listener) {
+        overviewButton.addActionListener(listener);
+    }
+
+    /**
+     * Checks whether the all-lots overview is selected.
+     * @return true if the overview should be shown instead of the current lot
+     */
+    public boolean isOverviewSelected() {
+        return overviewButton.isSelected();
+    }
+
+    /**
+     * Selects or deselects the overview toggle without notifying its listener.
+     * @param selected true to select the overview
+     */
+    public void setOverviewSelected(boolean selected) {
+        overviewButton.setSelected(selected);
+    }
+
+    /**
+     * Sets the action listener for the lot view selector.
+     * @param listener the action listener to handle lot view changes
+     */
+    public void setLotViewListener(ActionListener listener) {
+        lotViewSelector.addActionListener(listener);
+    }
+
+    /**
+     * Gets the selected way of showing the current lot.
+     * @return one of VIEW_SPOTS, VIEW_DWELL_HEATMAP or VIEW_TURNOVER_HEATMAP
+     */
+    public String getSelectedLotView() {
+        return (String) lotViewSelector.getSelectedItem();
+    }
+
+    /**
+     * Sets the action listener for the search field. It is notified whenever the search text changes.
+     * @param listener the action listener to handle search changes
+     */
+    public void setSearchListener(final ActionListener listener) {
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+
+            private void searchChanged() {
+                listener.actionPerformed(new ActionEvent(searchField, ActionEvent.ACTION_PERFORMED, "search"));
+            }
+        });
+    }
+
+    /**
+     * Gets the text entered in the search field.
+     * @return the trimmed search text, empty if no search is active
+     */
+    public String getSearchText() {
+        return searchField.getText().trim();
+    }
+
+    /**
+     * Displays the outcome of the current search next to the search field.
+     * @param text the summary to display, empty to clear it
+     * @param toolTip details shown when hovering over the summary, or null for none
+     */
+    public void setSearchResult(String text, String toolTip) {
+        searchResultLabel.setText(text);
+        searchResultLabel.setToolTipText(toolTip);
+    }
+
     /**
      * Gets the name of the currently selected parking lot from the dropdown.
      * @return the name of the selected lot, or null if no lot is selected
@@ -0,0 +1,255 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Forecasts future availability of parking lots from their occupy/vacate history.
+ * For every lot it incrementally counts arrivals per hour of the week and dwell times per
+ * arrival hour of the day. A recompute pass, run periodically in the background or on demand,
+ * turns these statistics into an expected occupancy for every hour of the week, using a
+ * fork/join task per batch of lots on the forecaster's own pool.
+ * Forecast queries only read the latest precomputed model, so they never scan spots.
+ *
+ * A forecast starts from the lot's current occupancy and converges towards the seasonal
+ * expectation as the forecast horizon grows relative to the lot's mean dwell time.
+ */
+public class OccupancyForecaster implements ParkingLotListener {
+    private static final int HOURS_PER_WEEK = 7 * 24;
+    private static final int MAX_DWELL_HOURS = 48;
+    private static final int LOTS_PER_TASK = 16;
+
+    private final Map<ParkingLot, History> histories = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Statistics collected for a single lot. Updated from listener callbacks under the
+     * lot's lock and read concurrently by the recompute pass.
+     */
+    private static class History {
+        final LocalDateTime trackingStart = LocalDateTime.now();
+        final AtomicLongArray arrivals = new AtomicLongArray(HOURS_PER_WEEK);
+        final AtomicLongArray dwellHours = new AtomicLongArray(24 * MAX_DWELL_HOURS);
+        volatile Model model;
+    }
+
+    /**
+     * Immutable forecast model for a single lot.
+     */
+    private static class Model {
+        final double[] expectedOccupied;
+        final double meanDwellHours;
+
+        Model(double[] expectedOccupied, double meanDwellHours) {
+            this.expectedOccupied = expectedOccupied;
+            this.meanDwellHours = meanDwellHours;
+        }
+    }
+
+    /**
+     * Constructs a forecaster using one worker thread per available processor.
+     */
+    public OccupancyForecaster() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("occupancy-forecast-" + threadNumber.getAndIncrement());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Starts recomputing forecast models in the background at a fixed interval.
+     * @param interval the time between recompute passes
+     */
+    public synchronized void start(Duration interval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "occupancy-forecaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::recompute, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background recomputation and the worker threads. A recompute pass in progress
+     * is completed.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Recomputes the forecast models of all tracked lots in parallel.
+     */
+    public void recompute() {
+        List<History> all = new ArrayList<>(histories.values());
+        pool.invoke(new RecomputeTask(all, 0, all.size()));
+    }
+
+    /**
+     * Forecasts the number of available spots in a lot at the given time.
+     * @param lot the parking lot
+     * @param time the time to forecast for
+     * @return the expected number of available spots, or the current number if the lot
+     *         has no model yet or the time is not in the future
+     */
+    public int forecastAvailableSpots(ParkingLot lot, LocalDateTime time) {
+        History history = histories.get(lot);
+        Model model = history == null ? null : history.model;
+        int occupied = lot.getOccupiedSpots();
+        double hoursAhead = Duration.between(LocalDateTime.now(), time).toMillis() / 3_600_000.0;
+        if (model == null || hoursAhead <= 0) {
+            return lot.getAvailableSpots();
+        }
+
+        double expectedNow = model.expectedOccupied[hourOfWeek(LocalDateTime.now())];
+        double expectedThen = model.expectedOccupied[hourOfWeek(time)];
+        double persistence = Math.exp(-hoursAhead / model.meanDwellHours);
+        double forecast = expectedThen + (occupied - expectedNow) * persistence;
+        long forecastOccupied = Math.round(Math.max(0, Math.min(lot.getTotalSpots(), forecast)));
+        return lot.getTotalSpots() - (int) forecastOccupied;
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        History history = histories.get(lot);
+        if (history != null) {
+            history.arrivals.incrementAndGet(hourOfWeek(startTime));
+        }
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        History history = histories.get(lot);
+        if (history != null && startTime != null) {
+            long hours = Math.min(MAX_DWELL_HOURS - 1, Math.max(0, Duration.between(startTime, endTime).toHours()));
+            history.dwellHours.incrementAndGet(startTime.getHour() * MAX_DWELL_HOURS + (int) hours);
+        }
+    }
+
+    @Override
+    public void lotAdded(ParkingLot lot) {
+        History history = new History();
+        histories.put(lot, history);
+        // Count vehicles already parked as arrivals at their start time
+        synchronized (lot) {
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    if (spot.isOccupied() && spot.getOccupationStartTime() != null) {
+                        history.arrivals.incrementAndGet(hourOfWeek(spot.getOccupationStartTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a time to its hour of the week, starting at Monday 00:00.
+     * @param time the time to map
+     * @return the hour of the week (0-167)
+     */
+    private static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    /**
+     * Builds the model of a single lot. The expected occupancy at each hour of the week is
+     * the sum, over the preceding hours, of the arrival rate at that hour multiplied by the
+     * fraction of vehicles arriving then that are still parked.
+     * @param history the lot's statistics
+     * @return the new model, or null if no vehicle has left the lot yet
+     */
+    private static Model buildModel(History history) {
+        // Fraction of vehicles arriving at each hour of the day still parked after k hours
+        double[] survival = new double[24 * MAX_DWELL_HOURS];
+        long sessions = 0;
+        double dwellSum = 0;
+        for (int hour = 0; hour < 24; hour++) {
+            long total = 0;
+            for (int k = 0; k < MAX_DWELL_HOURS; k++) {
+                total += history.dwellHours.get(hour * MAX_DWELL_HOURS + k);
+            }
+            long remaining = total;
+            for (int k = 0; k < MAX_DWELL_HOURS; k++) {
+                long ended = history.dwellHours.get(hour * MAX_DWELL_HOURS + k);
+                // Vehicles leaving during hour k are counted as present for half of it
+                survival[hour * MAX_DWELL_HOURS + k] = total == 0 ? 0 : (remaining - ended / 2.0) / total;
+                remaining -= ended;
+                dwellSum += ended * (k + 0.5);
+            }
+            sessions += total;
+        }
+        if (sessions == 0) {
+            return null;
+        }
+
+        // Arrivals per hour, normalised by how often each hour of the week has been observed
+        double[] arrivalRate = new double[HOURS_PER_WEEK];
+        long observedHours = Math.max(1, Duration.between(history.trackingStart, LocalDateTime.now()).toHours());
+        int startHour = hourOfWeek(history.trackingStart);
+        for (int h = 0; h < HOURS_PER_WEEK; h++) {
+            long offset = Math.floorMod(h - startHour, HOURS_PER_WEEK);
+            long occurrences = offset < observedHours ? 1 + (observedHours - 1 - offset) / HOURS_PER_WEEK : 0;
+            arrivalRate[h] = history.arrivals.get(h) / (double) Math.max(1, occurrences);
+        }
+
+        double[] expectedOccupied = new double[HOURS_PER_WEEK];
+        for (int h = 0; h < HOURS_PER_WEEK; h++) {
+            double expected = 0;
+            for (int k = 0; k < MAX_DWELL_HOURS; k++) {
+                int arrivalHour = Math.floorMod(h - k, HOURS_PER_WEEK);
+                expected += arrivalRate[arrivalHour] * survival[(arrivalHour % 24) * MAX_DWELL_HOURS + k];
+            }
+            expectedOccupied[h] = expected;
+        }
+        return new Model(expectedOccupied, Math.max(0.5, dwellSum / sessions));
+    }
+
+    /**
+     * Fork/join task rebuilding the models of a range of lots.
+     */
+    private static class RecomputeTask extends RecursiveAction {
+        private final List<History> histories;
+        private final int from;
+        private final int to;
+
+        RecomputeTask(List<History> histories, int from, int to) {
+            this.histories = histories;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LOTS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    History history = histories.get(i);
+                    Model model = buildModel(history);
+                    if (model != null) {
+                        history.model = model;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RecomputeTask(histories, from, middle), new RecomputeTask(histories, middle, to));
+        }
+    }
+}
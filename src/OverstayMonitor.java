@@ -0,0 +1,258 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detects vehicles that have been parked longer than a time limit.
+ * Every occupied spot of the observed lots is kept in an index ordered by occupation start
+ * time, maintained on occupy and vacate. Vehicles parked longer than any duration are a
+ * prefix of that index, and the next vehicle to cross the limit is the first entry after it,
+ * so neither query has to look at spots that are not affected.
+ *
+ * When started, the monitor schedules a check for the moment the next vehicle crosses the
+ * limit and notifies its alert listeners about each vehicle exactly once. Each check only
+ * visits the vehicles that crossed the limit since the previous one.
+ */
+public class OverstayMonitor implements ParkingLotListener {
+
+    /**
+     * Receives alerts about newly overstaying vehicles.
+     */
+    public interface AlertListener {
+        /**
+         * Called once when a vehicle exceeds the monitor's time limit.
+         * @param spot the spot occupied by the vehicle
+         */
+        void vehicleOverstayed(SpotRef spot);
+    }
+
+    /** Default time limit used by the application. */
+    public static final Duration DEFAULT_LIMIT = Duration.ofHours(4);
+
+    private final Duration limit;
+    // Lots are told apart by the order in which the monitor first saw them
+    private final Map<ParkingLot, Integer> lotNumbers = new ConcurrentHashMap<>();
+    private final AtomicInteger nextLotNumber = new AtomicInteger();
+    private final Comparator<SpotRef> byStartTime = Comparator
+        .comparing(SpotRef::getStartTime)
+        // Probes without a lot sort before every entry with the same start time
+        .thenComparingInt((SpotRef ref) -> lotNumber(ref.getLot()))
+        .thenComparingInt(SpotRef::getRow)
+        .thenComparingInt(SpotRef::getCol);
+    private final NavigableSet<SpotRef> index = new ConcurrentSkipListSet<>(byStartTime);
+    private final Set<SpotRef> alerted = new ConcurrentSkipListSet<>(byStartTime);
+    private final List<AlertListener> alertListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextCheck;
+    private LocalDateTime nextCheckTime;
+    private LocalDateTime alertedThrough = LocalDateTime.MIN;
+
+    /**
+     * Constructs a new monitor.
+     * @param limit the parking duration after which a vehicle is considered overstaying
+     */
+    public OverstayMonitor(Duration limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the parking duration after which a vehicle is considered overstaying.
+     * @return the time limit
+     */
+    public Duration getLimit() {
+        return limit;
+    }
+
+    /**
+     * Registers a listener for overstay alerts. Alerts are only delivered once the monitor has been started.
+     * @param listener the listener to add
+     */
+    public void addAlertListener(AlertListener listener) {
+        alertListeners.add(listener);
+    }
+
+    /**
+     * Starts delivering alerts on a background thread.
+     */
+    public synchronized void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "overstay-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::checkAlerts);
+    }
+
+    /**
+     * Stops delivering alerts.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            nextCheck = null;
+            nextCheckTime = null;
+        }
+    }
+
+    /**
+     * Finds all vehicles parked for longer than the given duration, longest first.
+     * @param duration the minimum parking duration
+     * @return the matching spots
+     */
+    public List<SpotRef> getParkedLongerThan(Duration duration) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(duration);
+        return new ArrayList<>(index.headSet(probe(cutoff.plusNanos(1)), false));
+    }
+
+    /**
+     * Finds all vehicles currently parked for longer than the monitor's limit, longest first.
+     * @return the overstaying spots
+     */
+    public List<SpotRef> getOverstaying() {
+        return getParkedLongerThan(limit);
+    }
+
+    /**
+     * Finds the vehicle that will exceed the monitor's limit next.
+     * @return the next spot to overstay, or null if no parked vehicle is below the limit
+     */
+    public SpotRef getNextToOverstay() {
+        return index.ceiling(probe(LocalDateTime.now().minus(limit).plusNanos(1)));
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        if (startTime == null) {
+            return;
+        }
+        SpotRef spot = new SpotRef(lot, row, col, vehicleId, startTime);
+        index.add(spot);
+        LocalDateTime crossing = startTime.plus(limit);
+        if (!crossing.isAfter(LocalDateTime.now())) {
+            // Back-dated occupation already past the limit, possibly behind the last check
+            submit(() -> alertOnce(spot));
+        } else if (isBeforeNextCheck(crossing)) {
+            submit(this::scheduleNextCheck);
+        }
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime != null) {
+            SpotRef spot = new SpotRef(lot, row, col, vehicleId, startTime);
+            index.remove(spot);
+            alerted.remove(spot);
+        }
+    }
+
+    @Override
+    public void lotAdded(ParkingLot lot) {
+        lotNumber(lot);
+        synchronized (lot) {
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    if (spot.isOccupied() && spot.getOccupationStartTime() != null) {
+                        spotOccupied(lot, row, col, spot.getVehicleId(), spot.getOccupationStartTime());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Alerts about every vehicle that crossed the limit since the previous check and
+     * schedules the next check. Runs on the scheduler thread only.
+     */
+    private void checkAlerts() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(limit);
+        for (SpotRef spot : index.subSet(probe(alertedThrough.plusNanos(1)), true, probe(cutoff.plusNanos(1)), false)) {
+            alertOnce(spot);
+        }
+        alertedThrough = cutoff;
+        scheduleNextCheck();
+    }
+
+    /**
+     * Notifies the alert listeners about a spot unless it has been alerted already
+     * or has been vacated in the meantime. Runs on the scheduler thread only.
+     */
+    private void alertOnce(SpotRef spot) {
+        if (index.contains(spot) && alerted.add(spot)) {
+            if (!index.contains(spot)) {
+                // Vacated concurrently; do not keep it in the alerted set
+                alerted.remove(spot);
+                return;
+            }
+            for (AlertListener listener : alertListeners) {
+                listener.vehicleOverstayed(spot);
+            }
+        }
+    }
+
+    /**
+     * Schedules the next check for the moment the next vehicle crosses the limit.
+     */
+    private synchronized void scheduleNextCheck() {
+        if (scheduler == null) {
+            return;
+        }
+        if (nextCheck != null) {
+            nextCheck.cancel(false);
+        }
+        SpotRef next = getNextToOverstay();
+        if (next == null) {
+            nextCheck = null;
+            nextCheckTime = null;
+            return;
+        }
+        nextCheckTime = next.getStartTime().plus(limit);
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), nextCheckTime).toMillis() + 1);
+        nextCheck = scheduler.schedule(this::checkAlerts, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a task on the scheduler thread if the monitor is running.
+     */
+    private synchronized void submit(Runnable task) {
+        if (scheduler != null) {
+            scheduler.execute(task);
+        }
+    }
+
+    /**
+     * Checks whether a crossing time falls before the currently scheduled check.
+     */
+    private synchronized boolean isBeforeNextCheck(LocalDateTime time) {
+        return nextCheckTime == null || time.isBefore(nextCheckTime);
+    }
+
+    /**
+     * Gets the number identifying a lot in the index, numbering lots as they are first seen.
+     * @return the lot's number, or -1 for the missing lot of a probe
+     */
+    private int lotNumber(ParkingLot lot) {
+        return lot == null ? -1 : lotNumbers.computeIfAbsent(lot, key -> nextLotNumber.getAndIncrement());
+    }
+
+    /**
+     * Creates a search key that sorts before every entry with the given start time.
+     */
+    private static SpotRef probe(LocalDateTime startTime) {
+        return new SpotRef(null, -1, -1, null, startTime);
+    }
+}
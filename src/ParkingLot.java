@@ -1,14 +1,38 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a parking lot with a grid of parking spots.
  * Manages spot availability, pricing, and provides methods for spot operations.
+ * Spot changes made through this class are synchronized on the lot and reported
+ * to registered {@link ParkingLotListener}s. Spots should only be changed through the
+ * lot so that its availability counts stay accurate.
+ *
+ * A lot attached to a {@link LotResidencyManager} may have its grid evicted to storage
+ * while idle. Its name, size, rates and counts stay available, and the grid is loaded
+ * again transparently on the next spot access.
+ *
+ * Every change to the grid is also bracketed by a write stamp, so reports can scan the
+ * spots optimistically without taking the lot's lock and detect concurrent changes afterwards.
  */
 public class ParkingLot {
     private String name;
     private double hourlyRate;
+    private volatile double currentHourlyRate;
     private ParkingSpot[][] spots;
     private int rows;
     private int cols;
+    private volatile int occupiedCount;
+    private LotResidencyManager residency;
+    private volatile long lastAccessNanos = System.nanoTime();
+    private boolean dirty;
+    private final List<ParkingLotListener> listeners = new CopyOnWriteArrayList<>();
+    // Only write-locked while holding the lot's lock, so it never blocks writers
+    private final StampedLock gridStamp = new StampedLock();
 
     /**
      * Constructs a new ParkingLot with the specified dimensions and pricing.
@@ -20,16 +44,68 @@ public class ParkingLot {
     public ParkingLot(String name, double hourlyRate, int rows, int cols) {
         this.name = name;
         this.hourlyRate = hourlyRate;
+        this.currentHourlyRate = hourlyRate;
         this.rows = rows;
         this.cols = cols;
-        this.spots = new ParkingSpot[rows][cols];
-        
-        // Initialize all spots as unoccupied
+        this.spots = createGrid();
+    }
+
+    /**
+     * Constructs a ParkingLot whose grid is stored elsewhere and loaded on first access.
+     * @param name the name of the parking lot
+     * @param hourlyRate the cost per hour for parking
+     * @param rows the number of rows in the parking lot grid
+     * @param cols the number of columns in the parking lot grid
+     * @param occupiedCount the number of occupied spots in the stored grid
+     * @param residency the residency manager that loads and evicts the grid
+     */
+    ParkingLot(String name, double hourlyRate, int rows, int cols, int occupiedCount, LotResidencyManager residency) {
+        this.name = name;
+        this.hourlyRate = hourlyRate;
+        this.currentHourlyRate = hourlyRate;
+        this.rows = rows;
+        this.cols = cols;
+        this.occupiedCount = occupiedCount;
+        this.residency = residency;
+    }
+
+    /**
+     * Creates a grid with all spots unoccupied.
+     * @return the new grid
+     */
+    private ParkingSpot[][] createGrid() {
+        ParkingSpot[][] grid = new ParkingSpot[rows][cols];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                spots[i][j] = new ParkingSpot();
+                grid[i][j] = new ParkingSpot();
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Gets the grid, loading it from storage if it has been evicted. Callers must hold the lot's lock.
+     * @return the resident grid
+     */
+    private ParkingSpot[][] grid() {
+        lastAccessNanos = System.nanoTime();
+        if (spots == null) {
+            long stamp = gridStamp.writeLock();
+            try {
+                spots = createGrid();
+                if (occupiedCount > 0) {
+                    residency.load(this);
+                }
+            } catch (IOException e) {
+                spots = null;
+                throw new UncheckedIOException("Failed to load parking lot " + name, e);
+            } finally {
+                gridStamp.unlockWrite(stamp);
             }
+            dirty = false;
+            residency.loaded(this);
         }
+        return spots;
     }
 
     /**
@@ -41,13 +117,30 @@ public class ParkingLot {
     }
 
     /**
-     * Gets the hourly rate for parking in this lot.
-     * @return the cost per hour
+     * Gets the base hourly rate for parking in this lot, as set when the lot was created.
+     * @return the base cost per hour
      */
     public double getHourlyRate() {
         return hourlyRate;
     }
 
+    /**
+     * Gets the hourly rate currently charged in this lot.
+     * Equals the base rate unless a pricing engine has published a different rate.
+     * @return the current cost per hour
+     */
+    public double getCurrentHourlyRate() {
+        return currentHourlyRate;
+    }
+
+    /**
+     * Publishes the hourly rate currently charged in this lot.
+     * @param rate the new cost per hour
+     */
+    public void setCurrentHourlyRate(double rate) {
+        this.currentHourlyRate = rate;
+    }
+
     /**
      * Gets the number of rows in the parking lot grid.
      * @return the number of rows
@@ -70,9 +163,9 @@ public class ParkingLot {
      * @param col the column index (0-based)
      * @return the ParkingSpot at the given coordinates, or null if coordinates are invalid
      */
-    public ParkingSpot getSpot(int row, int col) {
+    public synchronized ParkingSpot getSpot(int row, int col) {
         if (isValidCoordinates(row, col)) {
-            return spots[row][col];
+            return grid()[row][col];
         }
         return null;
     }
@@ -96,27 +189,20 @@ public class ParkingLot {
     }
 
     /**
-     * Counts the number of currently available (unoccupied) parking spots.
+     * Gets the number of currently available (unoccupied) parking spots.
+     * The count is maintained by occupySpot and vacateSpot, so this is a constant-time read.
      * @return the number of available spots
      */
     public int getAvailableSpots() {
-        int count = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (!spots[i][j].isOccupied()) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return getTotalSpots() - occupiedCount;
     }
 
     /**
-     * Calculates the number of currently occupied parking spots.
+     * Gets the number of currently occupied parking spots.
      * @return the number of occupied spots
      */
     public int getOccupiedSpots() {
-        return getTotalSpots() - getAvailableSpots();
+        return occupiedCount;
     }
 
     /**
@@ -127,12 +213,31 @@ public class ParkingLot {
      * @return true if the spot was successfully occupied, false if the spot is already occupied or coordinates are invalid
      */
     public boolean occupySpot(int row, int col, String vehicleId) {
+        return occupySpot(row, col, vehicleId, LocalDateTime.now());
+    }
+
+    /**
+     * Attempts to occupy a specific parking spot with a known occupation start time.
+     * @param row the row index of the spot to occupy
+     * @param col the column index of the spot to occupy
+     * @param vehicleId the unique identifier of the vehicle
+     * @param startTime the time the vehicle started occupying the spot
+     * @return true if the spot was successfully occupied, false if the spot is already occupied or coordinates are invalid
+     */
+    public synchronized boolean occupySpot(int row, int col, String vehicleId, LocalDateTime startTime) {
         if (!isValidCoordinates(row, col)) {
             return false;
         }
-        ParkingSpot spot = spots[row][col];
+        ParkingSpot spot = grid()[row][col];
         if (!spot.isOccupied()) {
-            spot.occupy(vehicleId);
+            long stamp = gridStamp.writeLock();
+            spot.occupy(vehicleId, startTime);
+            occupiedCount++;
+            gridStamp.unlockWrite(stamp);
+            dirty = true;
+            for (ParkingLotListener listener : listeners) {
+                listener.spotOccupied(this, row, col, vehicleId, startTime);
+            }
             return true;
         }
         return false;
@@ -144,15 +249,151 @@ public class ParkingLot {
      * @param col the column index of the spot to vacate
      * @return true if the spot was successfully vacated, false if the spot is not occupied or coordinates are invalid
      */
-    public boolean vacateSpot(int row, int col) {
+    public synchronized boolean vacateSpot(int row, int col) {
         if (!isValidCoordinates(row, col)) {
             return false;
         }
-        ParkingSpot spot = spots[row][col];
+        ParkingSpot spot = grid()[row][col];
         if (spot.isOccupied()) {
+            String vehicleId = spot.getVehicleId();
+            LocalDateTime startTime = spot.getOccupationStartTime();
+            long stamp = gridStamp.writeLock();
             spot.vacate();
+            occupiedCount--;
+            gridStamp.unlockWrite(stamp);
+            dirty = true;
+            LocalDateTime endTime = LocalDateTime.now();
+            for (ParkingLotListener listener : listeners) {
+                listener.spotVacated(this, row, col, vehicleId, startTime, endTime);
+            }
             return true;
         }
         return false;
     }
+
+    /**
+     * Starts an optimistic read of the grid. The caller may then read the grid returned by
+     * {@link #peekGrid()} without the lot's lock, and must discard what it read unless
+     * {@link #validateRead(long)} confirms that the grid did not change in the meantime.
+     * Values read before validation may be inconsistent and must not be trusted blindly.
+     * @return a stamp to validate, or 0 if the grid is being changed right now
+     */
+    long beginOptimisticRead() {
+        return gridStamp.tryOptimisticRead();
+    }
+
+    /**
+     * Checks whether the grid is unchanged since an optimistic read began.
+     * @param stamp the stamp returned by {@link #beginOptimisticRead()}
+     * @return true if everything read from the grid since then is consistent
+     */
+    boolean validateRead(long stamp) {
+        return stamp != 0 && gridStamp.validate(stamp);
+    }
+
+    /**
+     * Gets the grid without loading it or taking the lot's lock, for optimistic reads.
+     * The spots must not be modified.
+     * @return the grid, or null if it is not resident
+     */
+    ParkingSpot[][] peekGrid() {
+        return spots;
+    }
+
+    /**
+     * Gets the grid for a read-only scan, loading it if it has been evicted.
+     * Callers must hold the lot's lock and must not modify the spots.
+     * @return the resident grid
+     */
+    ParkingSpot[][] scanGrid() {
+        return grid();
+    }
+
+    /**
+     * Checks whether this lot's grid is currently in memory.
+     * @return true if the grid is resident
+     */
+    public synchronized boolean isLoaded() {
+        return spots != null;
+    }
+
+    /**
+     * Gets the last time this lot's grid was accessed, in System.nanoTime() units.
+     * @return the last access time
+     */
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * Places this lot under the control of a residency manager, allowing its grid to be evicted.
+     * @param residency the residency manager
+     */
+    synchronized void setResidency(LotResidencyManager residency) {
+        this.residency = residency;
+        // The grid has never been stored, so it must be saved before it can be dropped
+        this.dirty = true;
+    }
+
+    /**
+     * Saves the grid to storage if it changed since it was loaded or last saved.
+     * @throws IOException if the grid could not be saved
+     */
+    synchronized void save() throws IOException {
+        if (spots != null && dirty && residency != null) {
+            residency.save(this);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Drops the grid from memory, saving it first if it changed since it was loaded.
+     * Spot references obtained earlier must not be used after the grid has been evicted.
+     * @return true if the grid was evicted, false if it was not resident or not evictable
+     * @throws IOException if the grid could not be saved, in which case it stays resident
+     */
+    synchronized boolean evict() throws IOException {
+        if (spots == null || residency == null) {
+            return false;
+        }
+        save();
+        long stamp = gridStamp.writeLock();
+        spots = null;
+        gridStamp.unlockWrite(stamp);
+        residency.evicted(this);
+        return true;
+    }
+
+    /**
+     * Restores an occupied spot while the grid is being loaded from storage.
+     * Listeners are not notified and counts are not changed. Callers must hold the lot's lock.
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle occupying the spot
+     * @param startTime the time the occupation started
+     * @return true if the spot was restored, false if the coordinates are invalid or the spot is already occupied
+     */
+    boolean restoreSpot(int row, int col, String vehicleId, LocalDateTime startTime) {
+        if (!isValidCoordinates(row, col) || spots[row][col].isOccupied()) {
+            return false;
+        }
+        spots[row][col].occupy(vehicleId, startTime);
+        return true;
+    }
+
+    /**
+     * Registers a listener to be notified of spot changes in this lot.
+     * @param listener the listener to add
+     */
+    public void addListener(ParkingLotListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     * @param listener the listener to remove
+     */
+    public void removeListener(ParkingLotListener listener) {
+        listeners.remove(listener);
+    }
 }
@@ -0,0 +1,39 @@
+import java.time.LocalDateTime;
+
+/**
+ * Receives notifications about changes to the spots of a parking lot.
+ * Listeners are invoked synchronously while the lot is locked, so implementations
+ * must be quick and must never block on I/O.
+ */
+public interface ParkingLotListener {
+
+    /**
+     * Called after a spot has been occupied.
+     * @param lot the parking lot containing the spot
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle now occupying the spot
+     * @param startTime the time the occupation started
+     */
+    void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime);
+
+    /**
+     * Called after a spot has been vacated.
+     * @param lot the parking lot containing the spot
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle that left the spot
+     * @param startTime the time the finished occupation started
+     * @param endTime the time the spot was vacated
+     */
+    void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * Called when this listener starts observing a lot, either because the lot was added
+     * to a ParkingLotManager or because the listener was registered with one.
+     * Listeners that index current state should seed themselves from the lot here.
+     * @param lot the parking lot now being observed
+     */
+    default void lotAdded(ParkingLot lot) {
+    }
+}
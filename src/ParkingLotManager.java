@@ -4,10 +4,15 @@ import java.util.List;
 /**
  * Manages multiple parking lots and provides functionality to switch between them.
  * Maintains a collection of parking lots and tracks the currently selected lot.
+ * All methods are synchronized so lots can be added from background threads.
+ * Vehicles parked in the managed lots can be searched through a {@link VehicleIndex},
+ * which is built on first use.
  */
 public class ParkingLotManager {
     private List<ParkingLot> parkingLots;
     private ParkingLot currentLot;
+    private List<ParkingLotListener> listeners;
+    private VehicleIndex vehicleIndex;
 
     /**
      * Constructs a new ParkingLotManager with an empty list of parking lots.
@@ -16,6 +21,7 @@ public class ParkingLotManager {
     public ParkingLotManager() {
         this.parkingLots = new ArrayList<>();
         this.currentLot = null;
+        this.listeners = new ArrayList<>();
     }
 
     /**
@@ -23,26 +29,62 @@ public class ParkingLotManager {
      * If no current lot is set, the newly added lot becomes the current lot.
      * @param lot the parking lot to add
      */
-    public void addParkingLot(ParkingLot lot) {
+    public synchronized void addParkingLot(ParkingLot lot) {
         parkingLots.add(lot);
         if (currentLot == null) {
             currentLot = lot;
         }
+        for (ParkingLotListener listener : listeners) {
+            lot.addListener(listener);
+            listener.lotAdded(lot);
+        }
+    }
+
+    /**
+     * Registers a listener on every parking lot in this manager, including lots added later.
+     * The listener's {@link ParkingLotListener#lotAdded(ParkingLot)} is called for each existing lot.
+     * @param listener the listener to add
+     */
+    public synchronized void addParkingLotListener(ParkingLotListener listener) {
+        listeners.add(listener);
+        for (ParkingLot lot : parkingLots) {
+            lot.addListener(listener);
+            listener.lotAdded(lot);
+        }
+    }
+
+    /**
+     * Removes a listener from every parking lot in this manager.
+     * @param listener the listener to remove
+     */
+    public synchronized void removeParkingLotListener(ParkingLotListener listener) {
+        listeners.remove(listener);
+        for (ParkingLot lot : parkingLots) {
+            lot.removeListener(listener);
+        }
     }
 
     /**
      * Returns a copy of all parking lots managed by this manager.
      * @return a new ArrayList containing all parking lots
      */
-    public List<ParkingLot> getAllParkingLots() {
+    public synchronized List<ParkingLot> getAllParkingLots() {
         return new ArrayList<>(parkingLots);
     }
 
+    /**
+     * Gets the number of parking lots managed by this manager, without copying the list.
+     * @return the lot count
+     */
+    public synchronized int getLotCount() {
+        return parkingLots.size();
+    }
+
     /**
      * Gets the currently selected parking lot.
      * @return the current parking lot, or null if no lot is selected
      */
-    public ParkingLot getCurrentLot() {
+    public synchronized ParkingLot getCurrentLot() {
         return currentLot;
     }
 
@@ -52,7 +94,7 @@ public class ParkingLotManager {
      * @param lot the parking lot to set as current
      * @return true if the lot was successfully set as current, false if the lot is not in the collection
      */
-    public boolean setCurrentLot(ParkingLot lot) {
+    public synchronized boolean setCurrentLot(ParkingLot lot) {
         if (parkingLots.contains(lot)) {
             this.currentLot = lot;
             return true;
@@ -65,7 +107,7 @@ public class ParkingLotManager {
      * @param name the name of the parking lot to set as current
      * @return true if a lot with the given name was found and set as current, false otherwise
      */
-    public boolean setCurrentLotByName(String name) {
+    public synchronized boolean setCurrentLotByName(String name) {
         ParkingLot lot = findParkingLotByName(name);
         if (lot != null) {
             this.currentLot = lot;
@@ -79,10 +121,32 @@ public class ParkingLotManager {
      * @param name the name of the parking lot to find
      * @return the parking lot with the given name, or null if not found
      */
-    public ParkingLot getParkingLotByName(String name) {
+    public synchronized ParkingLot getParkingLotByName(String name) {
         return findParkingLotByName(name);
     }
     
+    /**
+     * Gets the index of vehicles parked in the managed lots, creating it on first use.
+     * Creating the index scans every lot, which loads the grids of lazily loaded lots.
+     * @return the vehicle index, kept up to date as spots change
+     */
+    public synchronized VehicleIndex getVehicleIndex() {
+        if (vehicleIndex == null) {
+            vehicleIndex = new VehicleIndex();
+            addParkingLotListener(vehicleIndex);
+        }
+        return vehicleIndex;
+    }
+
+    /**
+     * Finds the occupied spots in the managed lots matching a query.
+     * @param query the query, e.g. VehicleQuery.parse("AIR &gt;2h")
+     * @return the matching spots, ordered by vehicle ID
+     */
+    public List<SpotRef> searchVehicles(VehicleQuery query) {
+        return getVehicleIndex().search(query);
+    }
+
     /**
      * Private helper method to find a parking lot by name.
      * Consolidates the duplicate searching logic.
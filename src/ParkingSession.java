@@ -0,0 +1,107 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * An immutable record of a completed parking session: which vehicle used which spot,
+ * from when until when, and what it was charged.
+ */
+public class ParkingSession {
+    private final String lotName;
+    private final int row;
+    private final int col;
+    private final String vehicleId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final double charge;
+
+    /**
+     * Constructs a new ParkingSession.
+     * @param lotName the name of the parking lot
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle that was parked
+     * @param startTime the time the session started
+     * @param endTime the time the spot was vacated
+     * @param charge the amount charged for the session
+     */
+    public ParkingSession(String lotName, int row, int col, String vehicleId,
+                          LocalDateTime startTime, LocalDateTime endTime, double charge) {
+        this.lotName = lotName;
+        this.row = row;
+        this.col = col;
+        this.vehicleId = vehicleId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.charge = charge;
+    }
+
+    /**
+     * Gets the name of the parking lot.
+     * @return the lot name
+     */
+    public String getLotName() {
+        return lotName;
+    }
+
+    /**
+     * Gets the row index of the spot.
+     * @return the row index
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column index of the spot.
+     * @return the column index
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Gets the vehicle that was parked.
+     * @return the vehicle ID
+     */
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    /**
+     * Gets the time the session started.
+     * @return the start time
+     */
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the time the spot was vacated.
+     * @return the end time
+     */
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the amount charged for the session.
+     * @return the charge
+     */
+    public double getCharge() {
+        return charge;
+    }
+
+    /**
+     * Calculates how long the session lasted.
+     * @return the session duration
+     */
+    public Duration getDuration() {
+        return Duration.between(startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s at %s (%d,%d) from %s to %s, $%.2f",
+            vehicleId, lotName, row, col, startTime, endTime, charge);
+    }
+}
@@ -33,8 +33,18 @@ public class ParkingSpot {
      * @param vehicleId the unique identifier of the vehicle occupying this spot
      */
     public void occupy(String vehicleId) {
+        occupy(vehicleId, LocalDateTime.now());
+    }
+    
+    /**
+     * Occupies this parking spot with the given vehicle ID and a known start time.
+     * Used when the occupation happened elsewhere, e.g. when applying replicated state.
+     * @param vehicleId the unique identifier of the vehicle occupying this spot
+     * @param startTime the time the vehicle started occupying this spot
+     */
+    public void occupy(String vehicleId, LocalDateTime startTime) {
         this.isOccupied = true;
-        this.occupationStartTime = LocalDateTime.now();
+        this.occupationStartTime = startTime;
         this.vehicleId = vehicleId;
     }
     
@@ -60,6 +70,14 @@ public class ParkingSpot {
         return Duration.between(occupationStartTime, LocalDateTime.now());
     }
     
+    /**
+     * Gets the time the current vehicle started occupying this spot.
+     * @return the occupation start time, or null if the spot is not occupied
+     */
+    public LocalDateTime getOccupationStartTime() {
+        return occupationStartTime;
+    }
+    
     /**
      * Gets the vehicle ID of the vehicle currently occupying this spot.
      * @return the vehicle ID, or null if the spot is not occupied
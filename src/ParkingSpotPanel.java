@@ -5,10 +5,14 @@ import javax.swing.*;
 /**
  * A Swing component that represents a single parking spot in the GUI.
  * Displays the spot's status (available/occupied) with appropriate colors
- * and shows occupation duration for occupied spots.
+ * and shows occupation duration for occupied spots. The panel never reads
+ * the live ParkingSpot; it is updated from immutable {@link LotSnapshot}s
+ * and reused across refreshes.
  */
 public class ParkingSpotPanel extends JPanel {
-    private ParkingSpot spot;
+    private boolean occupied;
+    private String vehicleId;
+    private boolean highlighted;
     private JButton spotButton;
     private JLabel timeLabel;
     private int row;
@@ -16,20 +20,20 @@ public class ParkingSpotPanel extends JPanel {
     private ActionListener clickListener;
 
     /**
-     * Constructs a new ParkingSpotPanel for the specified parking spot.
-     * @param spot the ParkingSpot object this panel represents
+     * Constructs a new ParkingSpotPanel for the spot at the given position.
+     * @param snapshot the snapshot providing the spot's initial status
      * @param row the row index of this spot in the parking lot grid
      * @param col the column index of this spot in the parking lot grid
      * @param clickListener the action listener to handle spot clicks
      */
-    public ParkingSpotPanel(ParkingSpot spot, int row, int col, ActionListener clickListener) {
-        this.spot = spot;
+    public ParkingSpotPanel(LotSnapshot snapshot, int row, int col, ActionListener clickListener) {
         this.row = row;
         this.col = col;
         this.clickListener = clickListener;
         
         initializeComponents();
-        updateDisplay();
+        this.occupied = !snapshot.isOccupied(row, col);
+        updateDisplay(snapshot);
     }
 
     /**
@@ -58,43 +62,60 @@ public class ParkingSpotPanel extends JPanel {
     }
 
     /**
-     * Updates the visual display of this parking spot based on its current status.
-     * Sets appropriate colors and text for available (green) and occupied (red) spots.
+     * Updates the visual display of this parking spot from a snapshot of its lot.
+     * Sets appropriate colors and text for available (green) and occupied (red) spots;
+     * colors are only touched when the status actually changed.
+     * @param snapshot the snapshot containing this spot's status
      */
-    public void updateDisplay() {
-        if (spot.isOccupied()) {
-            spotButton.setBackground(GUIUtils.SPOT_OCCUPIED);
-            spotButton.setText("OCCUPIED");
-            spotButton.setForeground(Color.WHITE);
-            timeLabel.setText(spot.getFormattedOccupationTime());
-            timeLabel.setForeground(Color.WHITE);
-        } else {
-            spotButton.setBackground(GUIUtils.SPOT_AVAILABLE);
-            spotButton.setText("AVAILABLE");
-            spotButton.setForeground(Color.BLACK);
-            timeLabel.setText("Available");
-            timeLabel.setForeground(Color.BLACK);
+    public void updateDisplay(LotSnapshot snapshot) {
+        boolean nowOccupied = snapshot.isOccupied(row, col);
+        vehicleId = snapshot.getVehicleId(row, col);
+        if (nowOccupied != occupied) {
+            occupied = nowOccupied;
+            if (occupied) {
+                spotButton.setBackground(GUIUtils.SPOT_OCCUPIED);
+                spotButton.setText("OCCUPIED");
+                spotButton.setForeground(Color.WHITE);
+                timeLabel.setForeground(Color.WHITE);
+            } else {
+                spotButton.setBackground(GUIUtils.SPOT_AVAILABLE);
+                spotButton.setText("AVAILABLE");
+                spotButton.setForeground(Color.BLACK);
+                timeLabel.setForeground(Color.BLACK);
+            }
+            spotButton.setOpaque(true);
+            spotButton.setBorderPainted(false);
+        }
+        timeLabel.setText(snapshot.getTimeLabel(row, col));
+    }
+
+    /**
+     * Marks this spot as matching the current search by drawing a thick highlight border.
+     * @param highlighted true to highlight the spot
+     */
+    public void setHighlighted(boolean highlighted) {
+        if (highlighted != this.highlighted) {
+            this.highlighted = highlighted;
+            setBorder(highlighted
+                ? BorderFactory.createLineBorder(GUIUtils.SPOT_HIGHLIGHT, 3)
+                : BorderFactory.createLineBorder(Color.BLACK, 1));
         }
-        
-        spotButton.setOpaque(true);
-        spotButton.setBorderPainted(false);
     }
 
     /**
-     * Updates the parking spot this panel represents and refreshes the display.
-     * @param spot the new ParkingSpot object to represent
+     * Checks whether this spot was occupied in the last displayed snapshot.
+     * @return true if the spot is shown as occupied
      */
-    public void setSpot(ParkingSpot spot) {
-        this.spot = spot;
-        updateDisplay();
+    public boolean isOccupied() {
+        return occupied;
     }
 
     /**
-     * Gets the parking spot this panel represents.
-     * @return the ParkingSpot object
+     * Gets the ID of the vehicle occupying this spot in the last displayed snapshot.
+     * @return the vehicle ID, or null if the spot is shown as available
      */
-    public ParkingSpot getSpot() {
-        return spot;
+    public String getVehicleId() {
+        return vehicleId;
     }
 
     /**
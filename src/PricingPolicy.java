@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+/**
+ * A set of pricing rules applied to a lot's base hourly rate.
+ * Occupancy tiers multiply the rate once the lot's occupancy reaches a threshold, and
+ * time windows multiply it during certain hours of the day. The effective rate is the
+ * base rate multiplied by the highest reached tier and by every matching time window.
+ * A policy can be shared by many lots. Build it completely before assigning it: rates are
+ * only recomputed when a lot's tier changes or a time window starts or ends, so changes made
+ * to an assigned policy are not published until then. Assign it again with
+ * {@link DynamicPricingEngine#setPolicy} to publish them immediately.
+ */
+public class PricingPolicy {
+    private double[] tierThresholds = new double[0];
+    private double[] tierMultipliers = new double[0];
+    private final double[] hourMultipliers = new double[24];
+    private boolean hasTimeWindows;
+
+    /**
+     * Constructs a new policy that leaves the base rate unchanged.
+     */
+    public PricingPolicy() {
+        Arrays.fill(hourMultipliers, 1.0);
+    }
+
+    /**
+     * Adds an occupancy tier.
+     * @param minOccupancy the occupancy ratio (0-1) from which the tier applies
+     * @param multiplier the factor applied to the base rate within the tier
+     * @return this policy
+     */
+    public PricingPolicy addOccupancyTier(double minOccupancy, double multiplier) {
+        int index = 0;
+        while (index < tierThresholds.length && tierThresholds[index] < minOccupancy) {
+            index++;
+        }
+        tierThresholds = insert(tierThresholds, index, minOccupancy);
+        tierMultipliers = insert(tierMultipliers, index, multiplier);
+        return this;
+    }
+
+    /**
+     * Adds a time-of-day window. Windows may wrap around midnight (e.g. 22 to 6). A window
+     * cannot be empty, so a start equal to the end is rejected rather than taken as a whole
+     * day; use 0 to 24 for that.
+     * @param startHour the first hour of the window (0-23)
+     * @param endHour the hour at which the window ends (0-24, exclusive; 24 and 0 both mean midnight)
+     * @param multiplier the factor applied to the base rate during the window
+     * @return this policy
+     * @throws IllegalArgumentException if an hour is out of range or the window is empty
+     */
+    public PricingPolicy addTimeWindow(int startHour, int endHour, double multiplier) {
+        if (startHour < 0 || startHour > 23 || endHour < 0 || endHour > 24) {
+            throw new IllegalArgumentException("Invalid time window " + startHour + " to " + endHour);
+        }
+        if (startHour == endHour % 24 && endHour != 24) {
+            throw new IllegalArgumentException("Empty time window " + startHour + " to " + endHour);
+        }
+        int hour = startHour;
+        do {
+            hourMultipliers[hour] *= multiplier;
+            hour = (hour + 1) % 24;
+        } while (hour != endHour % 24);
+        hasTimeWindows = true;
+        return this;
+    }
+
+    /**
+     * Checks whether the rate of this policy depends on the time of day.
+     * @return true if the policy has time windows
+     */
+    public boolean hasTimeWindows() {
+        return hasTimeWindows;
+    }
+
+    /**
+     * Gets the number of occupancy tiers.
+     * @return the tier count
+     */
+    public int getTierCount() {
+        return tierThresholds.length;
+    }
+
+    /**
+     * Calculates the number of occupied spots from which a tier applies in a lot of the given size.
+     * @param tier the tier index, in increasing threshold order
+     * @param totalSpots the number of spots in the lot
+     * @return the minimum occupied count of the tier
+     */
+    public int getTierStart(int tier, int totalSpots) {
+        return (int) Math.ceil(tierThresholds[tier] * totalSpots);
+    }
+
+    /**
+     * Calculates the effective rate.
+     * @param baseRate the lot's base hourly rate
+     * @param tier the reached tier index, or -1 if no tier applies
+     * @param hour the hour of the day (0-23)
+     * @return the effective hourly rate
+     */
+    public double getRate(double baseRate, int tier, int hour) {
+        double rate = baseRate * hourMultipliers[hour];
+        if (tier >= 0) {
+            rate *= tierMultipliers[tier];
+        }
+        return rate;
+    }
+
+    private static double[] insert(double[] values, int index, double value) {
+        double[] result = new double[values.length + 1];
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+        return result;
+    }
+}
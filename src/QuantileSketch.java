@@ -0,0 +1,139 @@
+/**
+ * A mergeable streaming summary of non-negative values with approximate quantiles.
+ * Values are counted in logarithmically sized buckets, so every quantile is reported within
+ * about 2% relative error while memory stays constant regardless of how many values are added.
+ * Two sketches can be merged exactly by adding their bucket counts, which lets per-lot
+ * summaries be combined into fleet-wide ones.
+ * All methods are thread-safe.
+ */
+public class QuantileSketch {
+    private static final double RELATIVE_ACCURACY = 0.02;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Enough buckets to cover every positive long value
+    private static final int BUCKET_COUNT = (int) Math.ceil(Math.log(Long.MAX_VALUE) / LOG_GAMMA) + 2;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private double sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Adds a value to the sketch. Negative values are treated as zero.
+     * @param value the value to add
+     */
+    public synchronized void add(long value) {
+        long clamped = Math.max(0, value);
+        buckets[bucketIndex(clamped)]++;
+        count++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Adds all values summarized by another sketch to this one.
+     * @param other the sketch to merge in (left unchanged)
+     */
+    public void merge(QuantileSketch other) {
+        // Copy first so that two sketches merging into each other cannot deadlock
+        QuantileSketch source = other.copy();
+        synchronized (this) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] += source.buckets[i];
+            }
+            count += source.count;
+            sum += source.sum;
+            min = Math.min(min, source.min);
+            max = Math.max(max, source.max);
+        }
+    }
+
+    /**
+     * Creates an independent copy of this sketch.
+     * @return a new sketch with the same contents
+     */
+    public synchronized QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch();
+        System.arraycopy(buckets, 0, copy.buckets, 0, BUCKET_COUNT);
+        copy.count = count;
+        copy.sum = sum;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Gets the number of values added.
+     * @return the value count
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the exact mean of the values added.
+     * @return the mean, or 0 if the sketch is empty
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets the smallest value added.
+     * @return the minimum, or 0 if the sketch is empty
+     */
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets the largest value added.
+     * @return the maximum, or 0 if the sketch is empty
+     */
+    public synchronized long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Estimates the value at the given quantile.
+     * @param quantile the quantile between 0 and 1 (e.g. 0.99 for p99)
+     * @return the estimated value, or 0 if the sketch is empty
+     */
+    public synchronized long getQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, quantile)) * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen > rank) {
+                return Math.max(min, Math.min(max, bucketValue(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Maps a value to its bucket. Bucket 0 holds zero, bucket i holds (GAMMA^(i-1), GAMMA^i].
+     */
+    private static int bucketIndex(long value) {
+        if (value == 0) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, Math.max(1, (int) Math.ceil(Math.log(value) / LOG_GAMMA)));
+    }
+
+    /**
+     * Gets the representative value of a bucket, which is within the relative accuracy
+     * of every value that falls into it.
+     */
+    private static long bucketValue(int index) {
+        if (index == 0) {
+            return 0;
+        }
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+}
@@ -0,0 +1,287 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps a ParkingLotManager in sync with a ReplicationLeader running in another process.
+ * Operations received from the leader are applied to the follower's own ParkingLot
+ * instances, creating lots as they are announced. If the connection drops, the follower
+ * reconnects and resumes from its last applied sequence number.
+ *
+ * A follower can be promoted when the leader fails: it keeps applying whatever the leader
+ * still sends for a bounded catch-up window, then disconnects so that the caller can start
+ * a new ReplicationLeader on the same manager.
+ */
+public class ReplicationFollower {
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final ParkingLotManager manager;
+    private final String host;
+    private final int port;
+    private final Map<String, ParkingLot> lotsByName = new HashMap<>();
+    private volatile long epoch;
+    private volatile long appliedSeq;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread thread;
+    private boolean promoting;
+    private boolean drained;
+
+    /**
+     * Constructs a new follower.
+     * @param manager the manager to apply replicated operations to
+     * @param host the leader host
+     * @param port the leader port
+     */
+    public ReplicationFollower(ParkingLotManager manager, String host, int port) {
+        this.manager = manager;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Starts following the leader on a background thread.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this::followLeader, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops following the leader and closes the connection.
+     */
+    public void stop() {
+        running = false;
+        closeSocket();
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Promotes this follower so its manager can take over as leader.
+     * Waits until the leader signals that nothing more is pending, the connection is lost,
+     * or the catch-up window elapses, whichever comes first, and then stops following.
+     * @param catchUpMillis the maximum time to wait for outstanding operations
+     * @return true if the follower was fully caught up with what the leader had sent
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean promote(long catchUpMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + catchUpMillis;
+        boolean caughtUp;
+        synchronized (this) {
+            promoting = true;
+            drained = socket == null;
+            long remaining = catchUpMillis;
+            while (!drained && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            caughtUp = drained;
+        }
+        stop();
+        return caughtUp;
+    }
+
+    /**
+     * Gets the sequence number of the last operation applied from the leader.
+     * @return the last applied sequence number
+     */
+    public long getAppliedSequence() {
+        return appliedSeq;
+    }
+
+    /**
+     * Checks whether the follower currently has a connection to the leader.
+     * @return true if connected
+     */
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    /**
+     * Connect loop run on the follower thread.
+     */
+    private void followLeader() {
+        while (running) {
+            try (Socket connection = new Socket(host, port)) {
+                connection.setTcpNoDelay(true);
+                socket = connection;
+                receive(connection);
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replication follower lost leader at " + host + ":" + port + ": " + e.getMessage());
+                }
+            } finally {
+                socket = null;
+                markDrained();
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handshakes with the leader and applies messages until the connection ends.
+     * @param connection the leader connection
+     */
+    private void receive(Socket connection) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeLong(epoch);
+        out.writeLong(appliedSeq);
+        out.flush();
+
+        long snapshotSeq = 0;
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT_BEGIN:
+                    epoch = in.readLong();
+                    snapshotSeq = in.readLong();
+                    break;
+                case ReplicationProtocol.SNAPSHOT_LOT:
+                    clearLot(ensureLot(in.readUTF(), in.readDouble(), in.readInt(), in.readInt()));
+                    break;
+                case ReplicationProtocol.SNAPSHOT_SPOT:
+                    applyOccupy(in.readUTF(), in.readInt(), in.readInt(), in.readUTF(), in.readLong());
+                    break;
+                case ReplicationProtocol.SNAPSHOT_END:
+                    appliedSeq = snapshotSeq;
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    in.readLong();
+                    markDrained();
+                    break;
+                case ReplicationProtocol.ADD_LOT:
+                case ReplicationProtocol.OCCUPY:
+                case ReplicationProtocol.VACATE:
+                    apply(ReplicationProtocol.Operation.read(type, in));
+                    break;
+                default:
+                    throw new IOException("Unknown replication message type " + type);
+            }
+        }
+    }
+
+    /**
+     * Applies a logged operation and records its sequence number.
+     * @param operation the operation received from the leader
+     */
+    private void apply(ReplicationProtocol.Operation operation) throws IOException {
+        if (operation.type == ReplicationProtocol.ADD_LOT) {
+            ensureLot(operation.lotName, operation.hourlyRate, operation.row, operation.col);
+        } else if (operation.type == ReplicationProtocol.OCCUPY) {
+            applyOccupy(operation.lotName, operation.row, operation.col, operation.vehicleId, operation.startMillis);
+        } else {
+            ParkingLot lot = requireLot(operation.lotName);
+            lot.vacateSpot(operation.row, operation.col);
+        }
+        appliedSeq = operation.seq;
+    }
+
+    /**
+     * Sets a spot to be occupied by the given vehicle. Applying the same occupation twice
+     * is a no-op, which makes replaying operations that overlap a snapshot safe.
+     */
+    private void applyOccupy(String lotName, int row, int col, String vehicleId, long startMillis) throws IOException {
+        ParkingLot lot = requireLot(lotName);
+        synchronized (lot) {
+            ParkingSpot spot = lot.getSpot(row, col);
+            if (spot == null) {
+                throw new IOException("Invalid spot " + row + "," + col + " in lot " + lotName);
+            }
+            if (spot.isOccupied() && (!vehicleId.equals(spot.getVehicleId())
+                    || TimeUtils.toEpochMillis(spot.getOccupationStartTime()) != startMillis)) {
+                lot.vacateSpot(row, col);
+            }
+            lot.occupySpot(row, col, vehicleId, TimeUtils.fromEpochMillis(startMillis));
+        }
+    }
+
+    /**
+     * Finds the lot with the given name, creating it if the leader announced a new lot.
+     * @throws IOException if a lot with that name exists with a different layout
+     */
+    private ParkingLot ensureLot(String name, double hourlyRate, int rows, int cols) throws IOException {
+        ParkingLot lot = lotsByName.get(name);
+        if (lot == null) {
+            lot = manager.getParkingLotByName(name);
+            if (lot == null) {
+                lot = new ParkingLot(name, hourlyRate, rows, cols);
+                manager.addParkingLot(lot);
+            }
+            lotsByName.put(name, lot);
+        }
+        if (lot.getRows() != rows || lot.getCols() != cols) {
+            throw new IOException("Lot " + name + " is " + lot.getRows() + "x" + lot.getCols()
+                + " locally but " + rows + "x" + cols + " on the leader");
+        }
+        return lot;
+    }
+
+    /**
+     * Finds a lot previously announced by the leader.
+     * @throws IOException if the lot is unknown
+     */
+    private ParkingLot requireLot(String name) throws IOException {
+        ParkingLot lot = lotsByName.get(name);
+        if (lot == null) {
+            throw new IOException("Leader referenced unknown lot " + name);
+        }
+        return lot;
+    }
+
+    /**
+     * Vacates every spot of a lot before its snapshot contents are applied.
+     */
+    private void clearLot(ParkingLot lot) {
+        synchronized (lot) {
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    lot.vacateSpot(row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wakes up a pending promotion once nothing more is outstanding from the leader.
+     */
+    private synchronized void markDrained() {
+        if (promoting) {
+            drained = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes the leader connection, unblocking the follower thread.
+     */
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Streams occupy/vacate operations of a ParkingLotManager to follower processes.
+ * Every change is appended to a bounded in-memory operation log with a sequence number.
+ * Each connected follower is served by its own thread, which replays the log from the
+ * follower's last applied sequence, or sends a full snapshot if that point is no longer
+ * retained. The leader only listens on the loopback interface.
+ */
+public class ReplicationLeader implements ParkingLotListener {
+    public static final int DEFAULT_LOG_CAPACITY = 100_000;
+    private static final long HEARTBEAT_MILLIS = 500;
+
+    private final ParkingLotManager manager;
+    private final int requestedPort;
+    private final long epoch;
+    private final ReplicationProtocol.Operation[] log;
+    private long lastSeq;
+    private final List<Socket> followers = new CopyOnWriteArrayList<>();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * Constructs a new leader with the default operation log capacity.
+     * @param manager the manager whose lots are replicated
+     * @param port the local port to listen on, or 0 for any free port
+     */
+    public ReplicationLeader(ParkingLotManager manager, int port) {
+        this(manager, port, DEFAULT_LOG_CAPACITY);
+    }
+
+    /**
+     * Constructs a new leader.
+     * @param manager the manager whose lots are replicated
+     * @param port the local port to listen on, or 0 for any free port
+     * @param logCapacity the number of recent operations retained for follower catch-up
+     */
+    public ReplicationLeader(ParkingLotManager manager, int port, int logCapacity) {
+        this.manager = manager;
+        this.requestedPort = port;
+        this.log = new ReplicationProtocol.Operation[logCapacity];
+        this.epoch = new Random().nextLong();
+    }
+
+    /**
+     * Starts listening for followers and begins recording changes of all managed lots.
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(requestedPort, 50, InetAddress.getLoopbackAddress());
+        running = true;
+        manager.addParkingLotListener(this);
+        Thread acceptThread = new Thread(this::acceptFollowers, "replication-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Stops the leader, disconnecting all followers.
+     */
+    public void stop() {
+        running = false;
+        manager.removeParkingLotListener(this);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        for (Socket follower : followers) {
+            try {
+                follower.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Gets the port the leader is listening on.
+     * @return the bound local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of currently connected followers.
+     * @return the follower count
+     */
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    /**
+     * Gets the sequence number of the most recent operation.
+     * @return the last assigned sequence number, or 0 if nothing has been recorded
+     */
+    public synchronized long getLastSequence() {
+        return lastSeq;
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        append(ReplicationProtocol.OCCUPY, lot.getName(), 0, row, col, vehicleId, TimeUtils.toEpochMillis(startTime));
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        append(ReplicationProtocol.VACATE, lot.getName(), 0, row, col, null, -1);
+    }
+
+    @Override
+    public void lotAdded(ParkingLot lot) {
+        // Log the vehicles already parked in the lot right after it, so followers creating
+        // the lot from the log start out identical; the lock keeps other changes out in between
+        synchronized (lot) {
+            append(ReplicationProtocol.ADD_LOT, lot.getName(), lot.getHourlyRate(), lot.getRows(), lot.getCols(), null, -1);
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    if (spot.isOccupied()) {
+                        append(ReplicationProtocol.OCCUPY, lot.getName(), 0, row, col, spot.getVehicleId(),
+                            TimeUtils.toEpochMillis(spot.getOccupationStartTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns the next sequence number to an operation and appends it to the log,
+     * overwriting the oldest entry once the log is full.
+     */
+    private synchronized void append(byte type, String lotName, double hourlyRate, int row, int col,
+                                     String vehicleId, long startMillis) {
+        long seq = ++lastSeq;
+        log[(int) (seq % log.length)] = new ReplicationProtocol.Operation(
+            type, seq, lotName, hourlyRate, row, col, vehicleId, startMillis);
+        notifyAll();
+    }
+
+    /**
+     * Waits for operations following the given sequence number.
+     * @param seq the last sequence number the caller has already sent
+     * @param timeoutMillis the maximum time to wait for new operations
+     * @return the operations after seq (empty on timeout), or null if some of them are no longer retained
+     */
+    private synchronized List<ReplicationProtocol.Operation> awaitOperationsAfter(long seq, long timeoutMillis)
+            throws InterruptedException {
+        if (seq == lastSeq && running) {
+            wait(timeoutMillis);
+        }
+        if (seq > lastSeq || seq < lastSeq - log.length) {
+            return null;
+        }
+        List<ReplicationProtocol.Operation> operations = new ArrayList<>((int) (lastSeq - seq));
+        for (long next = seq + 1; next <= lastSeq; next++) {
+            operations.add(log[(int) (next % log.length)]);
+        }
+        return operations;
+    }
+
+    /**
+     * Accept loop run on a daemon thread; starts one session thread per follower.
+     */
+    private void acceptFollowers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread session = new Thread(() -> serveFollower(socket), "replication-follower-" + socket.getPort());
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replication leader failed to accept follower: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves a single follower until it disconnects or the leader stops.
+     * @param socket the follower connection
+     */
+    private void serveFollower(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            long followerEpoch = in.readLong();
+            long sent = in.readLong();
+            if (followerEpoch != epoch) {
+                sent = sendSnapshot(out);
+            }
+            while (running) {
+                List<ReplicationProtocol.Operation> operations = awaitOperationsAfter(sent, HEARTBEAT_MILLIS);
+                if (operations == null) {
+                    sent = sendSnapshot(out);
+                    continue;
+                }
+                if (operations.isEmpty()) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(sent);
+                } else {
+                    for (ReplicationProtocol.Operation operation : operations) {
+                        operation.write(out);
+                    }
+                    sent = operations.get(operations.size() - 1).seq;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Follower disconnected
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Sends the full state of all lots. The snapshot reflects at least every operation up to
+     * the returned sequence number; operations after it are replayed by the caller and are
+     * applied idempotently by the follower, so concurrent changes cannot be lost.
+     * @param out the follower stream
+     * @return the sequence number the snapshot reflects
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        long watermark = getLastSequence();
+        out.writeByte(ReplicationProtocol.SNAPSHOT_BEGIN);
+        out.writeLong(epoch);
+        out.writeLong(watermark);
+        for (ParkingLot lot : manager.getAllParkingLots()) {
+            out.writeByte(ReplicationProtocol.SNAPSHOT_LOT);
+            out.writeUTF(lot.getName());
+            out.writeDouble(lot.getHourlyRate());
+            out.writeInt(lot.getRows());
+            out.writeInt(lot.getCols());
+
+            // Copy occupied spots under the lot lock, then write without holding it
+            List<ReplicationProtocol.Operation> occupied = new ArrayList<>();
+            synchronized (lot) {
+                for (int row = 0; row < lot.getRows(); row++) {
+                    for (int col = 0; col < lot.getCols(); col++) {
+                        ParkingSpot spot = lot.getSpot(row, col);
+                        if (spot.isOccupied()) {
+                            occupied.add(new ReplicationProtocol.Operation(ReplicationProtocol.OCCUPY, 0, lot.getName(), 0,
+                                row, col, spot.getVehicleId(), TimeUtils.toEpochMillis(spot.getOccupationStartTime())));
+                        }
+                    }
+                }
+            }
+            for (ReplicationProtocol.Operation spot : occupied) {
+                out.writeByte(ReplicationProtocol.SNAPSHOT_SPOT);
+                out.writeUTF(spot.lotName);
+                out.writeInt(spot.row);
+                out.writeInt(spot.col);
+                out.writeUTF(spot.vehicleId);
+                out.writeLong(spot.startMillis);
+            }
+        }
+        out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+        out.flush();
+        return watermark;
+    }
+}
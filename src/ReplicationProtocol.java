@@ -0,0 +1,112 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Defines the wire format used between a ReplicationLeader and its followers.
+ * Every message starts with a one-byte type followed by type-specific fields written
+ * with DataOutputStream. Occupation times are encoded with {@link TimeUtils}.
+ *
+ * On connect, the follower sends the leader epoch and the last sequence number it has
+ * applied. The leader then either replays its retained operation log from that point
+ * or sends a full snapshot, followed by live operations and periodic heartbeats.
+ */
+public class ReplicationProtocol {
+
+    /** Starts a snapshot: leader epoch (long), sequence number the snapshot reflects (long). */
+    public static final byte SNAPSHOT_BEGIN = 1;
+    /** Declares a lot and clears its spots: name (UTF), hourly rate (double), rows (int), cols (int). */
+    public static final byte SNAPSHOT_LOT = 2;
+    /** An occupied spot inside a snapshot: lot name (UTF), row (int), col (int), vehicle ID (UTF), start (long). */
+    public static final byte SNAPSHOT_SPOT = 3;
+    /** Ends a snapshot. */
+    public static final byte SNAPSHOT_END = 4;
+    /** A lot was added on the leader: sequence (long), then the same fields as SNAPSHOT_LOT. */
+    public static final byte ADD_LOT = 5;
+    /** A spot was occupied: sequence (long), lot name (UTF), row (int), col (int), vehicle ID (UTF), start (long). */
+    public static final byte OCCUPY = 6;
+    /** A spot was vacated: sequence (long), lot name (UTF), row (int), col (int). */
+    public static final byte VACATE = 7;
+    /** The leader has nothing more to send: leader's latest sequence (long). */
+    public static final byte HEARTBEAT = 8;
+
+    /**
+     * A single entry of the leader's operation log.
+     * Entries are immutable once their sequence number has been assigned.
+     */
+    public static class Operation {
+        final byte type;
+        final long seq;
+        final String lotName;
+        final double hourlyRate;
+        final int row;
+        final int col;
+        final String vehicleId;
+        final long startMillis;
+
+        /**
+         * Constructs a new operation.
+         * @param type one of ADD_LOT, OCCUPY or VACATE
+         * @param seq the sequence number assigned by the leader
+         * @param lotName the name of the affected lot
+         * @param hourlyRate the lot's hourly rate (ADD_LOT only)
+         * @param row the spot row, or the number of rows for ADD_LOT
+         * @param col the spot column, or the number of columns for ADD_LOT
+         * @param vehicleId the vehicle ID (OCCUPY only)
+         * @param startMillis the occupation start time (OCCUPY only)
+         */
+        Operation(byte type, long seq, String lotName, double hourlyRate, int row, int col,
+                  String vehicleId, long startMillis) {
+            this.type = type;
+            this.seq = seq;
+            this.lotName = lotName;
+            this.hourlyRate = hourlyRate;
+            this.row = row;
+            this.col = col;
+            this.vehicleId = vehicleId;
+            this.startMillis = startMillis;
+        }
+
+        /**
+         * Writes this operation in wire format.
+         * @param out the stream to write to
+         * @throws IOException if writing fails
+         */
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            out.writeLong(seq);
+            out.writeUTF(lotName);
+            if (type == ADD_LOT) {
+                out.writeDouble(hourlyRate);
+            }
+            out.writeInt(row);
+            out.writeInt(col);
+            if (type == OCCUPY) {
+                out.writeUTF(vehicleId);
+                out.writeLong(startMillis);
+            }
+        }
+
+        /**
+         * Reads the body of an operation whose type byte has already been consumed.
+         * @param type the operation type that was read
+         * @param in the stream to read from
+         * @return the decoded operation
+         * @throws IOException if reading fails
+         */
+        static Operation read(byte type, DataInputStream in) throws IOException {
+            long seq = in.readLong();
+            String lotName = in.readUTF();
+            double hourlyRate = type == ADD_LOT ? in.readDouble() : 0;
+            int row = in.readInt();
+            int col = in.readInt();
+            String vehicleId = null;
+            long startMillis = -1;
+            if (type == OCCUPY) {
+                vehicleId = in.readUTF();
+                startMillis = in.readLong();
+            }
+            return new Operation(type, seq, lotName, hourlyRate, row, col, vehicleId, startMillis);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A client for SensorIngestServer that pipelines events over a single connection.
+ * Events are encoded into a send buffer and written whenever it fills up or on
+ * {@link #flush()}. A background thread reads acknowledgements, and sending blocks
+ * once more than the configured window of events is unacknowledged.
+ * Events that cannot be encoded are rejected before they use a sequence number.
+ * Instances are not thread-safe for sending; use one client per sending thread.
+ */
+public class SensorIngestClient implements AutoCloseable {
+    private static final int SEND_BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(SEND_BUFFER_SIZE);
+    private final int window;
+    private final Thread ackReader;
+    private long nextSeq = 1;
+    private long ackedSeq;
+    private long rejected;
+    private IOException failure;
+
+    /**
+     * Connects to a SensorIngestServer.
+     * @param host the server host
+     * @param port the server port
+     * @param window the maximum number of unacknowledged events
+     * @throws IOException if the connection cannot be established
+     */
+    public SensorIngestClient(String host, int port, int window) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.window = window;
+        this.ackReader = new Thread(this::readReplies, "sensor-client-acks");
+        this.ackReader.setDaemon(true);
+        this.ackReader.start();
+    }
+
+    /**
+     * Queues an occupy event.
+     * @param lot the lot index on the server
+     * @param row the spot row
+     * @param col the spot column
+     * @param vehicleId the vehicle ID
+     * @return the sequence number assigned to the event
+     * @throws IOException if the connection failed
+     * @throws IllegalArgumentException if the spot or vehicle ID cannot be encoded
+     */
+    public long occupy(int lot, int row, int col, String vehicleId) throws IOException {
+        reserve(SensorProtocol.occupyFrameSize(vehicleId));
+        SensorProtocol.putOccupy(sendBuffer, nextSeq, lot, row, col, vehicleId);
+        return nextSeq++;
+    }
+
+    /**
+     * Queues a vacate event.
+     * @param lot the lot index on the server
+     * @param row the spot row
+     * @param col the spot column
+     * @return the sequence number assigned to the event
+     * @throws IOException if the connection failed
+     * @throws IllegalArgumentException if the spot cannot be encoded
+     */
+    public long vacate(int lot, int row, int col) throws IOException {
+        reserve(SensorProtocol.VACATE_FRAME_SIZE);
+        SensorProtocol.putVacate(sendBuffer, nextSeq, lot, row, col);
+        return nextSeq++;
+    }
+
+    /**
+     * Queues a report that a spot is occupied. Resending a report with the same event ID,
+     * e.g. after a reconnect, has no further effect on the server.
+     * @param eventId the event ID, identical for retransmissions of the same report
+     * @param spotSeq the report's sequence number for the spot, or 0 if unsequenced
+     * @param lot the lot index on the server
+     * @param row the spot row
+     * @param col the spot column
+     * @param timeMillis the detection time in epoch millis (UTC), or -1 for the time of arrival
+     * @param vehicleId the vehicle ID
+     * @return the sequence number assigned to the event
+     * @throws IOException if the connection failed
+     * @throws IllegalArgumentException if the spot or vehicle ID cannot be encoded
+     */
+    public long reportOccupied(long eventId, long spotSeq, int lot, int row, int col, long timeMillis, String vehicleId)
+            throws IOException {
+        reserve(SensorProtocol.spotOccupiedFrameSize(vehicleId));
+        SensorProtocol.putSpotOccupied(sendBuffer, nextSeq, eventId, spotSeq, lot, row, col, timeMillis, vehicleId);
+        return nextSeq++;
+    }
+
+    /**
+     * Queues a report that a spot is vacant. Resending a report with the same event ID
+     * has no further effect on the server.
+     * @param eventId the event ID, identical for retransmissions of the same report
+     * @param spotSeq the report's sequence number for the spot, or 0 if unsequenced
+     * @param lot the lot index on the server
+     * @param row the spot row
+     * @param col the spot column
+     * @return the sequence number assigned to the event
+     * @throws IOException if the connection failed
+     * @throws IllegalArgumentException if the spot cannot be encoded
+     */
+    public long reportVacant(long eventId, long spotSeq, int lot, int row, int col) throws IOException {
+        reserve(SensorProtocol.SPOT_VACANT_FRAME_SIZE);
+        SensorProtocol.putSpotVacant(sendBuffer, nextSeq, eventId, spotSeq, lot, row, col);
+        return nextSeq++;
+    }
+
+    /**
+     * Writes all queued events to the server.
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        sendBuffer.flip();
+        while (sendBuffer.hasRemaining()) {
+            channel.write(sendBuffer);
+        }
+        sendBuffer.clear();
+    }
+
+    /**
+     * Flushes and waits until every event sent so far has been acknowledged.
+     * @return the total number of rejected events since the client connected
+     * @throws IOException if the connection failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long awaitAll() throws IOException, InterruptedException {
+        flush();
+        awaitAck(nextSeq - 1);
+        synchronized (this) {
+            return rejected;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Makes room for a frame, flushing the buffer and waiting for the send window as needed.
+     */
+    private void reserve(int frameSize) throws IOException {
+        if (sendBuffer.remaining() < frameSize) {
+            flush();
+        }
+        if (nextSeq - window > ackedSeq()) {
+            flush();
+            try {
+                awaitAck(nextSeq - window);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for acknowledgements", e);
+            }
+        }
+    }
+
+    private synchronized long ackedSeq() {
+        return ackedSeq;
+    }
+
+    /**
+     * Waits until the server has acknowledged the given sequence number.
+     */
+    private synchronized void awaitAck(long seq) throws IOException, InterruptedException {
+        while (ackedSeq < seq) {
+            if (failure != null) {
+                throw failure;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Reply loop run on the acknowledgement thread.
+     */
+    private void readReplies() {
+        ByteBuffer in = ByteBuffer.allocateDirect(SEND_BUFFER_SIZE);
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                while (in.remaining() >= SensorProtocol.REPLY_FRAME_SIZE) {
+                    in.getInt();
+                    byte type = in.get();
+                    long seq = in.getLong();
+                    synchronized (this) {
+                        if (type == SensorProtocol.ACK) {
+                            ackedSeq = seq;
+                            notifyAll();
+                        } else {
+                            rejected++;
+                        }
+                    }
+                }
+                in.compact();
+            }
+            throw new IOException("Connection closed by server");
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        }
+    }
+}
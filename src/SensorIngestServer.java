@@ -0,0 +1,336 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingests gate and sensor events sent with the {@link SensorProtocol} binary protocol.
+ * A single selector thread serves all connections with non-blocking sockets. Every read
+ * is decoded and applied to the addressed lots as one batch, and answered with a single
+ * pipelined acknowledgement, so clients can keep many events in flight per connection.
+ * A connection whose replies have not been written yet is not read from, which pushes
+ * back on clients that send faster than their acknowledgements can be delivered.
+ * State reports (SPOT_OCCUPIED, SPOT_VACANT) are routed through an {@link IdempotentIngestor},
+ * so retransmitted and reordered reports are acknowledged without being applied twice.
+ */
+public class SensorIngestServer {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE =
+        (READ_BUFFER_SIZE / SensorProtocol.VACATE_FRAME_SIZE + 1) * SensorProtocol.REPLY_FRAME_SIZE;
+
+    private final ParkingLotManager manager;
+    private final InetSocketAddress address;
+    private final IdempotentIngestor ingestor;
+    private final AtomicLong eventsProcessed = new AtomicLong();
+    private final AtomicLong eventsRejected = new AtomicLong();
+    private ParkingLot[] lots = new ParkingLot[0];
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Per-connection buffers, attached to the connection's selection key.
+     */
+    private static class Connection {
+        final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        final ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        final byte[] vehicleId = new byte[255];
+    }
+
+    /**
+     * Constructs a new server listening on all interfaces.
+     * @param manager the manager whose lots receive the events
+     * @param port the port to listen on, or 0 for any free port
+     */
+    public SensorIngestServer(ParkingLotManager manager, int port) {
+        this(manager, new InetSocketAddress(port));
+    }
+
+    /**
+     * Constructs a new server listening on the given address.
+     * @param manager the manager whose lots receive the events
+     * @param address the address to listen on
+     */
+    public SensorIngestServer(ParkingLotManager manager, InetSocketAddress address) {
+        // Remembers event IDs for 15 to 16 seconds at up to 32768 reports per second
+        this(manager, address, new IdempotentIngestor(new EventDedupWindow(16, 1000, 32768)));
+    }
+
+    /**
+     * Constructs a new server listening on the given address and applying state reports
+     * through the given ingestor.
+     * @param manager the manager whose lots receive the events
+     * @param address the address to listen on
+     * @param ingestor the ingestor deduplicating state reports
+     */
+    public SensorIngestServer(ParkingLotManager manager, InetSocketAddress address, IdempotentIngestor ingestor) {
+        this.manager = manager;
+        this.address = address;
+        this.ingestor = ingestor;
+    }
+
+    /**
+     * Opens the server socket and starts the selector thread.
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 128);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::selectLoop, "sensor-ingest");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the server and closes all connections.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     * @return the bound local port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of events processed since the server started, including rejected ones.
+     * @return the processed event count
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed.get();
+    }
+
+    /**
+     * Gets the number of events that could not be applied since the server started.
+     * @return the rejected event count
+     */
+    public long getEventsRejected() {
+        return eventsRejected.get();
+    }
+
+    /**
+     * Gets the ingestor applying state reports, e.g. to read its duplicate and stale counts.
+     * @return the ingestor
+     */
+    public IdempotentIngestor getIngestor() {
+        return ingestor;
+    }
+
+    /**
+     * Selector loop run on the server thread.
+     */
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isWritable()) {
+                                write(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Sensor ingest server failed: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Accepts a pending connection and registers it for reading.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    /**
+     * Reads available bytes, applies every complete frame and queues the replies.
+     */
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (channel.read(connection.in) < 0) {
+            throw new IOException("Connection closed by client");
+        }
+        connection.in.flip();
+        long lastSeq = processFrames(connection);
+        connection.in.compact();
+        if (lastSeq >= 0) {
+            SensorProtocol.putReply(connection.out, SensorProtocol.ACK, lastSeq);
+            write(key);
+        }
+    }
+
+    /**
+     * Decodes and applies all complete frames in the connection's read buffer.
+     * @return the highest sequence number processed, or -1 if no complete frame was available
+     */
+    private long processFrames(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        long lastSeq = -1;
+        while (in.remaining() >= SensorProtocol.LENGTH_SIZE) {
+            int length = in.getInt(in.position());
+            if (length < SensorProtocol.VACATE_FRAME_SIZE - SensorProtocol.LENGTH_SIZE
+                    || length > SensorProtocol.MAX_FRAME_SIZE) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (in.remaining() < SensorProtocol.LENGTH_SIZE + length) {
+                break;
+            }
+            int frameEnd = in.position() + SensorProtocol.LENGTH_SIZE + length;
+            byte type = in.get(in.position() + SensorProtocol.LENGTH_SIZE);
+            if (length < minFrameLength(type)) {
+                throw new IOException("Frame of type " + type + " too short");
+            }
+            in.position(in.position() + SensorProtocol.LENGTH_SIZE + 1);
+            long seq = in.getLong();
+            boolean report = type == SensorProtocol.SPOT_OCCUPIED || type == SensorProtocol.SPOT_VACANT;
+            long eventId = report ? in.getLong() : 0;
+            long spotSeq = report ? in.getLong() : 0;
+            ParkingLot lot = lookupLot(in.getInt());
+            int row = Short.toUnsignedInt(in.getShort());
+            int col = Short.toUnsignedInt(in.getShort());
+            boolean applied;
+            if (type == SensorProtocol.OCCUPY) {
+                String vehicleId = readVehicleId(connection, frameEnd);
+                applied = lot != null && lot.occupySpot(row, col, vehicleId);
+            } else if (type == SensorProtocol.VACATE) {
+                applied = lot != null && lot.vacateSpot(row, col);
+            } else if (type == SensorProtocol.SPOT_OCCUPIED) {
+                long timeMillis = in.getLong();
+                String vehicleId = readVehicleId(connection, frameEnd);
+                applied = ingestor.occupied(eventId, spotSeq, lot, row, col, vehicleId, TimeUtils.fromEpochMillis(timeMillis))
+                    != IdempotentIngestor.Outcome.INVALID;
+            } else {
+                applied = ingestor.vacant(eventId, spotSeq, lot, row, col) != IdempotentIngestor.Outcome.INVALID;
+            }
+            in.position(frameEnd);
+            if (!applied) {
+                SensorProtocol.putReply(connection.out, SensorProtocol.REJECT, seq);
+                eventsRejected.incrementAndGet();
+            }
+            eventsProcessed.incrementAndGet();
+            lastSeq = seq;
+        }
+        return lastSeq;
+    }
+
+    /**
+     * Gets the smallest valid body length of a frame type.
+     * @param type the frame type
+     * @return the minimum length, counting the bytes after the length prefix
+     * @throws IOException if the type is unknown
+     */
+    private static int minFrameLength(byte type) throws IOException {
+        switch (type) {
+            case SensorProtocol.OCCUPY:
+                return SensorProtocol.occupyFrameSize("") - SensorProtocol.LENGTH_SIZE;
+            case SensorProtocol.VACATE:
+                return SensorProtocol.VACATE_FRAME_SIZE - SensorProtocol.LENGTH_SIZE;
+            case SensorProtocol.SPOT_OCCUPIED:
+                return SensorProtocol.spotOccupiedFrameSize("") - SensorProtocol.LENGTH_SIZE;
+            case SensorProtocol.SPOT_VACANT:
+                return SensorProtocol.SPOT_VACANT_FRAME_SIZE - SensorProtocol.LENGTH_SIZE;
+            default:
+                throw new IOException("Unknown frame type " + type);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed vehicle ID that must end within the current frame.
+     */
+    private static String readVehicleId(Connection connection, int frameEnd) throws IOException {
+        ByteBuffer in = connection.in;
+        int idLength = Byte.toUnsignedInt(in.get());
+        if (idLength > frameEnd - in.position()) {
+            throw new IOException("Vehicle ID exceeds frame");
+        }
+        in.get(connection.vehicleId, 0, idLength);
+        return new String(connection.vehicleId, 0, idLength, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Resolves a lot index, refreshing the cached lot list only if lots were added since,
+     * so frames with invalid indexes cannot force a copy of the lot list each.
+     * @param index the lot index sent by the client
+     * @return the lot, or null if the index is invalid
+     */
+    private ParkingLot lookupLot(int index) {
+        if (index >= lots.length && manager.getLotCount() != lots.length) {
+            List<ParkingLot> all = manager.getAllParkingLots();
+            lots = all.toArray(new ParkingLot[0]);
+        }
+        return index >= 0 && index < lots.length ? lots[index] : null;
+    }
+
+    /**
+     * Writes queued replies. While replies remain unwritten the connection is only
+     * watched for writability, so no further frames are read from it.
+     */
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        connection.out.flip();
+        channel.write(connection.out);
+        connection.out.compact();
+        if (connection.out.position() > 0) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
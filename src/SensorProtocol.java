@@ -0,0 +1,209 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Defines the compact binary protocol spoken by SensorIngestServer.
+ * Every frame is a big-endian int length (counting the bytes after it), a one-byte
+ * frame type and a type-specific body. Lots are addressed by their index in
+ * {@link ParkingLotManager#getAllParkingLots()} on the server, rows and columns are
+ * unsigned 16-bit values and vehicle IDs are ASCII with a one-byte length. The encoders
+ * reject values that do not fit rather than truncating them.
+ *
+ * Clients number their events with increasing sequence numbers and may send any number
+ * of frames without waiting. After each batch of frames it has read, the server replies
+ * with one REJECT frame per event that could not be applied, followed by a single ACK
+ * carrying the highest sequence number processed.
+ *
+ * OCCUPY and VACATE are commands that fail when the spot is not in the expected state.
+ * Sensors that may retransmit or reorder should send SPOT_OCCUPIED and SPOT_VACANT
+ * reports instead, which are applied idempotently by an {@link IdempotentIngestor}: they
+ * carry an event ID and a per-spot sequence number, and repeated or outdated reports are
+ * acknowledged without effect. Only reports for unknown lots or spots are rejected.
+ */
+public class SensorProtocol {
+
+    /** Occupy a spot: seq (long), lot (int), row (u16), col (u16), vehicle ID length (u8), vehicle ID. */
+    public static final byte OCCUPY = 1;
+    /** Vacate a spot: seq (long), lot (int), row (u16), col (u16). */
+    public static final byte VACATE = 2;
+    /**
+     * Report that a spot is occupied: seq (long), event ID (long), spot seq (long), lot (int),
+     * row (u16), col (u16), detection time (long, epoch millis UTC, -1 for now),
+     * vehicle ID length (u8), vehicle ID.
+     */
+    public static final byte SPOT_OCCUPIED = 3;
+    /** Report that a spot is vacant: seq (long), event ID (long), spot seq (long), lot (int), row (u16), col (u16). */
+    public static final byte SPOT_VACANT = 4;
+    /** Server to client: every event up to and including seq (long) has been processed. */
+    public static final byte ACK = 16;
+    /** Server to client: the event with the given seq (long) was rejected. */
+    public static final byte REJECT = 17;
+
+    /** Size of the length prefix. */
+    public static final int LENGTH_SIZE = 4;
+    /** Largest accepted frame body, which bounds per-connection buffering. */
+    public static final int MAX_FRAME_SIZE = 512;
+    /** Size of an encoded VACATE frame including its length prefix. */
+    public static final int VACATE_FRAME_SIZE = LENGTH_SIZE + 1 + 8 + 4 + 2 + 2;
+    /** Size of an encoded SPOT_VACANT frame including its length prefix. */
+    public static final int SPOT_VACANT_FRAME_SIZE = VACATE_FRAME_SIZE + 8 + 8;
+    /** Size of an encoded ACK or REJECT frame including its length prefix. */
+    public static final int REPLY_FRAME_SIZE = LENGTH_SIZE + 1 + 8;
+    /** Largest encodable row or column index. */
+    public static final int MAX_SPOT_INDEX = 0xFFFF;
+    /** Longest encodable vehicle ID. */
+    public static final int MAX_VEHICLE_ID_LENGTH = 0xFF;
+
+    /**
+     * Encodes an OCCUPY frame.
+     * @param buffer the buffer to write to
+     * @param seq the client sequence number
+     * @param lot the lot index
+     * @param row the spot row
+     * @param col the spot column
+     * @param vehicleId the vehicle ID (ASCII, at most 255 characters)
+     * @throws IllegalArgumentException if the spot or vehicle ID cannot be encoded
+     */
+    public static void putOccupy(ByteBuffer buffer, long seq, int lot, int row, int col, String vehicleId) {
+        checkSpot(row, col);
+        checkVehicleId(vehicleId);
+        int length = vehicleId.length();
+        buffer.putInt(1 + 8 + 4 + 2 + 2 + 1 + length);
+        buffer.put(OCCUPY);
+        buffer.putLong(seq);
+        buffer.putInt(lot);
+        buffer.putShort((short) row);
+        buffer.putShort((short) col);
+        buffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) vehicleId.charAt(i));
+        }
+    }
+
+    /**
+     * Encodes a VACATE frame.
+     * @param buffer the buffer to write to
+     * @param seq the client sequence number
+     * @param lot the lot index
+     * @param row the spot row
+     * @param col the spot column
+     * @throws IllegalArgumentException if the spot cannot be encoded
+     */
+    public static void putVacate(ByteBuffer buffer, long seq, int lot, int row, int col) {
+        checkSpot(row, col);
+        buffer.putInt(VACATE_FRAME_SIZE - LENGTH_SIZE);
+        buffer.put(VACATE);
+        buffer.putLong(seq);
+        buffer.putInt(lot);
+        buffer.putShort((short) row);
+        buffer.putShort((short) col);
+    }
+
+    /**
+     * Encodes a SPOT_OCCUPIED frame.
+     * @param buffer the buffer to write to
+     * @param seq the client sequence number
+     * @param eventId the event ID, identical for retransmissions of the same report
+     * @param spotSeq the report's sequence number for the spot, or 0 if unsequenced
+     * @param lot the lot index
+     * @param row the spot row
+     * @param col the spot column
+     * @param timeMillis the detection time in epoch millis (UTC), or -1 for the time of arrival
+     * @param vehicleId the vehicle ID (ASCII, at most 255 characters)
+     * @throws IllegalArgumentException if the spot or vehicle ID cannot be encoded
+     */
+    public static void putSpotOccupied(ByteBuffer buffer, long seq, long eventId, long spotSeq, int lot, int row, int col,
+                                       long timeMillis, String vehicleId) {
+        checkSpot(row, col);
+        checkVehicleId(vehicleId);
+        int length = vehicleId.length();
+        buffer.putInt(spotOccupiedFrameSize(vehicleId) - LENGTH_SIZE);
+        buffer.put(SPOT_OCCUPIED);
+        buffer.putLong(seq);
+        buffer.putLong(eventId);
+        buffer.putLong(spotSeq);
+        buffer.putInt(lot);
+        buffer.putShort((short) row);
+        buffer.putShort((short) col);
+        buffer.putLong(timeMillis);
+        buffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) vehicleId.charAt(i));
+        }
+    }
+
+    /**
+     * Encodes a SPOT_VACANT frame.
+     * @param buffer the buffer to write to
+     * @param seq the client sequence number
+     * @param eventId the event ID, identical for retransmissions of the same report
+     * @param spotSeq the report's sequence number for the spot, or 0 if unsequenced
+     * @param lot the lot index
+     * @param row the spot row
+     * @param col the spot column
+     * @throws IllegalArgumentException if the spot cannot be encoded
+     */
+    public static void putSpotVacant(ByteBuffer buffer, long seq, long eventId, long spotSeq, int lot, int row, int col) {
+        checkSpot(row, col);
+        buffer.putInt(SPOT_VACANT_FRAME_SIZE - LENGTH_SIZE);
+        buffer.put(SPOT_VACANT);
+        buffer.putLong(seq);
+        buffer.putLong(eventId);
+        buffer.putLong(spotSeq);
+        buffer.putInt(lot);
+        buffer.putShort((short) row);
+        buffer.putShort((short) col);
+    }
+
+    /**
+     * Encodes an ACK or REJECT frame.
+     * @param buffer the buffer to write to
+     * @param type ACK or REJECT
+     * @param seq the sequence number being acknowledged or rejected
+     */
+    public static void putReply(ByteBuffer buffer, byte type, long seq) {
+        buffer.putInt(REPLY_FRAME_SIZE - LENGTH_SIZE);
+        buffer.put(type);
+        buffer.putLong(seq);
+    }
+
+    /**
+     * Calculates the encoded size of an OCCUPY frame.
+     * @param vehicleId the vehicle ID
+     * @return the frame size including its length prefix
+     */
+    public static int occupyFrameSize(String vehicleId) {
+        return LENGTH_SIZE + 1 + 8 + 4 + 2 + 2 + 1 + vehicleId.length();
+    }
+
+    /**
+     * Calculates the encoded size of a SPOT_OCCUPIED frame.
+     * @param vehicleId the vehicle ID
+     * @return the frame size including its length prefix
+     */
+    public static int spotOccupiedFrameSize(String vehicleId) {
+        return SPOT_VACANT_FRAME_SIZE + 8 + 1 + vehicleId.length();
+    }
+
+    /**
+     * Verifies that a spot's coordinates fit the unsigned 16-bit fields.
+     */
+    private static void checkSpot(int row, int col) {
+        if (row < 0 || row > MAX_SPOT_INDEX || col < 0 || col > MAX_SPOT_INDEX) {
+            throw new IllegalArgumentException("Spot " + row + "," + col + " cannot be encoded");
+        }
+    }
+
+    /**
+     * Verifies that a vehicle ID is ASCII and fits the one-byte length.
+     */
+    private static void checkVehicleId(String vehicleId) {
+        if (vehicleId.length() > MAX_VEHICLE_ID_LENGTH) {
+            throw new IllegalArgumentException("Vehicle ID longer than " + MAX_VEHICLE_ID_LENGTH + " characters");
+        }
+        for (int i = 0; i < vehicleId.length(); i++) {
+            if (vehicleId.charAt(i) > 0x7F) {
+                throw new IllegalArgumentException("Vehicle ID is not ASCII: " + vehicleId);
+            }
+        }
+    }
+}
@@ -0,0 +1,606 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An append-only archive of completed parking sessions, fed by vacate events.
+ * Sessions are written to segment files as compressed blocks of up to 64 KB of records.
+ * Every segment keeps the earliest start and latest end time of its sessions and a bloom
+ * filter of its vehicle IDs, so a query for one vehicle or time range skips segments that
+ * cannot contain matches without reading them. The summaries of full segments are stored
+ * next to them in small index files, and segments left without one by a crash are
+ * recovered when the archive is opened.
+ *
+ * Vacate events are queued and written by a background thread, which also flushes the
+ * current block after a second without new sessions. Queries read the block still being
+ * filled from memory, so they never write to the segment, and they read segment files
+ * without holding the archive's lock. Once the archive is closed, further vacate events
+ * are ignored. If the writer fails, archiving stops for good: later sessions are ignored
+ * and queries and close() report the failure. The charge of a session is its duration multiplied by the lot's hourly rate
+ * at the time the spot is vacated.
+ */
+public class SessionArchive implements ParkingLotListener, AutoCloseable {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_MAGIC = 0x53494458; // "SIDX"
+    private static final int INDEX_VERSION = 1;
+    private static final int BLOCK_HEADER_SIZE = 12;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int BLOOM_BITS_PER_SESSION = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final long IDLE_FLUSH_MILLIS = 1000;
+    // Queued by close() to stop the writer after everything queued before it
+    private static final ParkingSession END_OF_QUEUE = new ParkingSession(null, 0, 0, null, null, null, 0);
+
+    private final Path directory;
+    private final int sessionsPerSegment;
+    private final List<Segment> sealedSegments = new ArrayList<>();
+    private final LinkedBlockingQueue<ParkingSession> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong sessionsQueued = new AtomicLong();
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+    private final DataOutputStream blockOut = new DataOutputStream(blockBytes);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Thread writer;
+    private Segment activeSegment;
+    private FileChannel activeChannel;
+    private int blockRecords;
+    private int nextSegmentNumber;
+    private long sessionsAppended;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    // Set once close() has written the last sessions; the active segment is then sealed or deleted
+    private boolean finished;
+
+    /**
+     * The time range and vehicle bloom filter of one segment file.
+     */
+    private static class Segment {
+        final Path file;
+        final long[] bloom;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int sessions;
+        long length;
+
+        Segment(Path file, int bloomWords) {
+            this.file = file;
+            this.bloom = new long[bloomWords];
+        }
+
+        void add(String vehicleKey, long start, long end) {
+            minTime = Math.min(minTime, start);
+            maxTime = Math.max(maxTime, end);
+            sessions++;
+            long hash = hash(vehicleKey);
+            long bits = bloom.length * 64L;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = Math.floorMod((hash >>> 32) + i * (hash & 0xFFFFFFFFL), bits);
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(String vehicleKey) {
+            long hash = hash(vehicleKey);
+            long bits = bloom.length * 64L;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = Math.floorMod((hash >>> 32) + i * (hash & 0xFFFFFFFFL), bits);
+                if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean overlaps(long from, long to) {
+            return sessions > 0 && minTime < to && maxTime >= from;
+        }
+
+        /**
+         * 64-bit FNV-1a hash of the key's characters.
+         */
+        private static long hash(String key) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Opens an archive, recovering segments that were not closed properly, and starts
+     * the writer thread. New sessions always go to a new segment.
+     * @param directory the directory holding the segment files
+     * @param sessionsPerSegment the number of sessions after which a segment is closed
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public SessionArchive(Path directory, int sessionsPerSegment) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.sessionsPerSegment = sessionsPerSegment;
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : segmentFiles) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            Path indexFile = indexFileFor(file);
+            Segment segment = Files.exists(indexFile) ? readIndex(file, indexFile) : recover(file);
+            sealedSegments.add(segment);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(file) + 1);
+        }
+        startSegment();
+
+        writer = new Thread(this::writeLoop, "session-archive");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        // Sessions are archived once they end
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || closed || failure != null) {
+            return;
+        }
+        double hours = Duration.between(startTime, endTime).getSeconds() / 3600.0;
+        double charge = Math.round(hours * lot.getCurrentHourlyRate() * 100) / 100.0;
+        pending.add(new ParkingSession(lot.getName(), row, col, vehicleId, startTime, endTime, charge));
+        sessionsQueued.incrementAndGet();
+    }
+
+    /**
+     * Finds archived sessions of a vehicle and/or within a time range. Sessions that ended
+     * before this call are included, unless they ended after the archive was closed.
+     * @param vehicleId the vehicle ID (case-insensitive), or null for all vehicles
+     * @param from the start of the time range, or null for no lower bound
+     * @param to the end of the time range (exclusive), or null for no upper bound
+     * @return the sessions overlapping the time range, in archive order
+     * @throws IOException if a segment cannot be read or the writer has failed
+     */
+    public List<ParkingSession> query(String vehicleId, LocalDateTime from, LocalDateTime to) throws IOException {
+        String vehicleKey = vehicleId != null ? VehicleIndex.normalize(vehicleId) : null;
+        long fromMillis = from != null ? TimeUtils.toEpochMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? TimeUtils.toEpochMillis(to) : Long.MAX_VALUE;
+
+        // Pick the candidate segments, how far to read them and the unwritten block, then read without holding the lock
+        List<Path> files = new ArrayList<>();
+        List<Long> lengths = new ArrayList<>();
+        byte[] pendingBlock = null;
+        int pendingRecords = 0;
+        synchronized (this) {
+            // Wait until the writer has appended every session queued so far
+            long queued = sessionsQueued.get();
+            while (!finished && failure == null && sessionsAppended < queued) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the archive writer");
+                }
+            }
+            if (failure != null) {
+                throw new IOException("Session archive writer failed: " + failure.getMessage(), failure);
+            }
+            List<Segment> segments = new ArrayList<>(sealedSegments);
+            if (!finished) {
+                segments.add(activeSegment);
+            }
+            for (Segment segment : segments) {
+                if (segment.overlaps(fromMillis, toMillis) && (vehicleKey == null || segment.mightContain(vehicleKey))) {
+                    files.add(segment.file);
+                    lengths.add(segment.length);
+                    if (segment == activeSegment && blockRecords > 0) {
+                        pendingBlock = blockBytes.toByteArray();
+                        pendingRecords = blockRecords;
+                    }
+                }
+            }
+        }
+
+        List<ParkingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            sessions.addAll(readSegment(files.get(i), lengths.get(i), null));
+        }
+        if (pendingBlock != null) {
+            sessions.addAll(decodeRecords(pendingBlock, pendingRecords));
+        }
+        List<ParkingSession> matches = new ArrayList<>();
+        for (ParkingSession session : sessions) {
+            long start = TimeUtils.toEpochMillis(session.getStartTime());
+            long end = TimeUtils.toEpochMillis(session.getEndTime());
+            if (start < toMillis && end >= fromMillis
+                    && (vehicleKey == null || VehicleIndex.normalize(session.getVehicleId()).equals(vehicleKey))) {
+                matches.add(session);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of segment files, including the one being written.
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return sealedSegments.size() + (finished ? 0 : 1);
+    }
+
+    /**
+     * Gets the number of archived sessions, not counting sessions still queued for writing.
+     * @return the session count
+     */
+    public synchronized long getSessionCount() {
+        long count = finished ? 0 : activeSegment.sessions;
+        for (Segment segment : sealedSegments) {
+            count += segment.sessions;
+        }
+        return count;
+    }
+
+    /**
+     * Writes all queued sessions, closes the current segment and stops the writer thread.
+     * Sessions that end afterwards are ignored; sealed segments can still be queried.
+     * Does nothing if the archive is already closed.
+     * @throws IOException if the sessions or the segment index cannot be written, or the
+     *         writer has failed before
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        // Not interrupted, as that would close the segment channel in the middle of a write
+        pending.add(END_OF_QUEUE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                finished = true;
+                notifyAll();
+                throw new IOException("Session archive writer failed: " + failure.getMessage(), failure);
+            }
+            try {
+                appendPending();
+                if (activeSegment.sessions > 0) {
+                    sealSegment();
+                } else {
+                    activeChannel.close();
+                    Files.delete(activeSegment.file);
+                }
+            } finally {
+                finished = true;
+                pending.clear();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writer loop run on the archive thread.
+     */
+    private void writeLoop() {
+        try {
+            while (true) {
+                ParkingSession session = pending.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (session == END_OF_QUEUE) {
+                    return;
+                }
+                synchronized (this) {
+                    if (session != null) {
+                        try {
+                            append(session);
+                            appendPending();
+                        } finally {
+                            notifyAll();
+                        }
+                    } else {
+                        writeBlock();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Not used to stop the writer; see close()
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Stops archiving after the writer failed. The segment being written may have lost its
+     * channel or be half sealed, so no further sessions are written to it; waiting queries
+     * are woken and fail, as do later queries and close().
+     * @param cause the writer's error
+     */
+    private synchronized void fail(Exception cause) {
+        failure = cause instanceof IOException ? (IOException) cause : new IOException(cause.toString(), cause);
+        System.err.println("Failed to archive parking sessions, archiving stopped: " + cause.getMessage());
+        pending.clear();
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            // Already failed
+        }
+        notifyAll();
+    }
+
+    /**
+     * Appends the queued sessions up to the end of the queue or the close marker.
+     * Called while holding this archive's lock.
+     */
+    private void appendPending() throws IOException {
+        ParkingSession session;
+        while ((session = pending.peek()) != null && session != END_OF_QUEUE) {
+            pending.poll();
+            append(session);
+        }
+    }
+
+    /**
+     * Encodes a session into the current block, writing the block when it is full and
+     * starting a new segment when the current one is full. Called while holding this archive's lock.
+     */
+    private void append(ParkingSession session) throws IOException {
+        sessionsAppended++;
+        long start = TimeUtils.toEpochMillis(session.getStartTime());
+        long end = TimeUtils.toEpochMillis(session.getEndTime());
+        String vehicleId = session.getVehicleId() != null ? session.getVehicleId() : "";
+        blockOut.writeUTF(session.getLotName());
+        blockOut.writeInt(session.getRow());
+        blockOut.writeInt(session.getCol());
+        blockOut.writeUTF(vehicleId);
+        blockOut.writeLong(start);
+        blockOut.writeLong(end);
+        blockOut.writeDouble(session.getCharge());
+        blockRecords++;
+        activeSegment.add(VehicleIndex.normalize(vehicleId), start, end);
+
+        if (activeSegment.sessions >= sessionsPerSegment) {
+            sealSegment();
+            startSegment();
+        } else if (blockBytes.size() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Compresses and writes the current block: compressed length, raw length and record
+     * count (ints), then the deflated records. Called while holding this archive's lock.
+     */
+    private void writeBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        byte[] raw = blockBytes.toByteArray();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressed.size());
+        block.putInt(compressed.size());
+        block.putInt(raw.length);
+        block.putInt(blockRecords);
+        block.put(compressed.toByteArray());
+        block.flip();
+        while (block.hasRemaining()) {
+            activeChannel.write(block);
+        }
+        activeSegment.length = activeChannel.position();
+        blockBytes.reset();
+        blockRecords = 0;
+    }
+
+    /**
+     * Opens a new, empty segment for writing. Called while holding this archive's lock.
+     */
+    private void startSegment() throws IOException {
+        Path file = directory.resolve(String.format("segment-%08d%s", nextSegmentNumber++, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeSegment = new Segment(file, bloomWords());
+    }
+
+    /**
+     * Writes the last block and the index of the current segment. Called while holding this archive's lock.
+     */
+    private void sealSegment() throws IOException {
+        writeBlock();
+        activeChannel.force(false);
+        activeChannel.close();
+        writeIndex(activeSegment);
+        sealedSegments.add(activeSegment);
+    }
+
+    /**
+     * Writes a segment's index file: magic, version, min and max time, session count,
+     * segment length and the bloom filter words.
+     */
+    private void writeIndex(Segment segment) throws IOException {
+        Path indexFile = indexFileFor(segment.file);
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 8 + 4 + 8 + 4 + segment.bloom.length * 8);
+        buffer.putInt(INDEX_MAGIC);
+        buffer.putInt(INDEX_VERSION);
+        buffer.putLong(segment.minTime);
+        buffer.putLong(segment.maxTime);
+        buffer.putInt(segment.sessions);
+        buffer.putLong(segment.length);
+        buffer.putInt(segment.bloom.length);
+        for (long word : segment.bloom) {
+            buffer.putLong(word);
+        }
+        Files.write(temp, buffer.array());
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Segment readIndex(Path file, Path indexFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) {
+            throw new IOException("Not a session archive index: " + indexFile);
+        }
+        long minTime = buffer.getLong();
+        long maxTime = buffer.getLong();
+        int sessions = buffer.getInt();
+        long length = buffer.getLong();
+        Segment segment = new Segment(file, buffer.getInt());
+        segment.minTime = minTime;
+        segment.maxTime = maxTime;
+        segment.sessions = sessions;
+        segment.length = length;
+        for (int i = 0; i < segment.bloom.length; i++) {
+            segment.bloom[i] = buffer.getLong();
+        }
+        return segment;
+    }
+
+    /**
+     * Rebuilds the index of a segment that was not closed, dropping a partially written last block.
+     */
+    private Segment recover(Path file) throws IOException {
+        Segment segment = new Segment(file, bloomWords());
+        for (ParkingSession session : readSegment(file, Files.size(file), segment)) {
+            segment.add(VehicleIndex.normalize(session.getVehicleId()),
+                TimeUtils.toEpochMillis(session.getStartTime()), TimeUtils.toEpochMillis(session.getEndTime()));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(segment.length);
+        }
+        writeIndex(segment);
+        System.err.println("Recovered " + segment.sessions + " archived sessions from " + file.getFileName());
+        return segment;
+    }
+
+    /**
+     * Reads the complete blocks of a segment up to the given length.
+     * @param recovering if not null, a partial or corrupt trailing block ends the read and
+     *        the segment's length is set to the end of the last good block
+     */
+    private static List<ParkingSession> readSegment(Path file, long length, Segment recovering) throws IOException {
+        List<ParkingSession> sessions = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BLOCK_SIZE))) {
+            long position = 0;
+            while (position + BLOCK_HEADER_SIZE <= length) {
+                List<ParkingSession> block;
+                int compressedLength;
+                try {
+                    compressedLength = in.readInt();
+                    int rawLength = in.readInt();
+                    int records = in.readInt();
+                    if (compressedLength < 0 || rawLength < 0 || position + BLOCK_HEADER_SIZE + compressedLength > length) {
+                        throw new EOFException("Truncated block");
+                    }
+                    byte[] compressed = new byte[compressedLength];
+                    in.readFully(compressed);
+                    block = decodeBlock(inflater, compressed, rawLength, records);
+                } catch (IOException | DataFormatException e) {
+                    if (recovering != null) {
+                        break;
+                    }
+                    throw new IOException("Corrupt session archive segment " + file.getFileName(), e);
+                }
+                sessions.addAll(block);
+                position += BLOCK_HEADER_SIZE + compressedLength;
+                if (recovering != null) {
+                    recovering.length = position;
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return sessions;
+    }
+
+    private static List<ParkingSession> decodeBlock(Inflater inflater, byte[] compressed, int rawLength, int records)
+            throws IOException, DataFormatException {
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed);
+        int inflated = 0;
+        while (inflated < rawLength && !inflater.finished()) {
+            int count = inflater.inflate(raw, inflated, rawLength - inflated);
+            if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            inflated += count;
+        }
+        if (inflated != rawLength) {
+            throw new DataFormatException("Block inflated to " + inflated + " of " + rawLength + " bytes");
+        }
+        return decodeRecords(raw, records);
+    }
+
+    /**
+     * Decodes the records of an uncompressed block.
+     */
+    private static List<ParkingSession> decodeRecords(byte[] raw, int records) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<ParkingSession> sessions = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            String lotName = in.readUTF();
+            int row = in.readInt();
+            int col = in.readInt();
+            String vehicleId = in.readUTF();
+            LocalDateTime start = TimeUtils.fromEpochMillis(in.readLong());
+            LocalDateTime end = TimeUtils.fromEpochMillis(in.readLong());
+            sessions.add(new ParkingSession(lotName, row, col, vehicleId, start, end, in.readDouble()));
+        }
+        return sessions;
+    }
+
+    private int bloomWords() {
+        return (int) ((sessionsPerSegment * (long) BLOOM_BITS_PER_SESSION + 63) / 64);
+    }
+
+    private static Path indexFileFor(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static int segmentNumber(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Records the occupancy history of every spot: how many parking sessions it served
+ * (turnover) and how long they lasted in total (dwell time).
+ * History starts when the tracker is registered and is kept in flat per-lot arrays
+ * without touching the lots' spot grids.
+ *
+ * Changes are versioned per square block of {@link #TILE_SIZE} x {@link #TILE_SIZE} spots,
+ * so a renderer can tell which parts of a lot changed since it last looked.
+ */
+public class SpotActivityTracker implements ParkingLotListener {
+    /** The side length, in spots, of the blocks whose changes are versioned together. */
+    public static final int TILE_SIZE = 64;
+
+    private final Map<ParkingLot, LotActivity> activities = new ConcurrentHashMap<>();
+
+    /**
+     * The occupancy history of the spots of one lot.
+     * Counters are written under the lot's lock; a reader that first reads a tile's version
+     * sees at least the counters that version stands for.
+     */
+    public static class LotActivity {
+        private final int rows;
+        private final int cols;
+        private final int tileCols;
+        private final int[] sessions;
+        private final long[] dwellSeconds;
+        private final AtomicIntegerArray tileVersions;
+        private final AtomicInteger version = new AtomicInteger();
+
+        LotActivity(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            this.tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+            this.sessions = new int[rows * cols];
+            this.dwellSeconds = new long[rows * cols];
+            this.tileVersions = new AtomicIntegerArray(tileCols * ((rows + TILE_SIZE - 1) / TILE_SIZE));
+        }
+
+        void record(int row, int col, long seconds) {
+            int index = row * cols + col;
+            sessions[index]++;
+            dwellSeconds[index] += seconds;
+            tileVersions.incrementAndGet((row / TILE_SIZE) * tileCols + col / TILE_SIZE);
+            version.incrementAndGet();
+        }
+
+        /**
+         * Gets the number of rows of the lot.
+         * @return the number of rows
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of columns of the lot.
+         * @return the number of columns
+         */
+        public int getCols() {
+            return cols;
+        }
+
+        /**
+         * Gets the number of completed parking sessions of a spot.
+         * @param row the row index
+         * @param col the column index
+         * @return the session count
+         */
+        public int getSessions(int row, int col) {
+            return sessions[row * cols + col];
+        }
+
+        /**
+         * Gets the average duration of the completed parking sessions of a spot.
+         * @param row the row index
+         * @param col the column index
+         * @return the average dwell time in seconds, or 0 if the spot has no sessions
+         */
+        public long getAverageDwellSeconds(int row, int col) {
+            int index = row * cols + col;
+            return sessions[index] == 0 ? 0 : dwellSeconds[index] / sessions[index];
+        }
+
+        /**
+         * Gets the change version of a block of spots.
+         * @param tileRow the block's row, in units of TILE_SIZE spots
+         * @param tileCol the block's column, in units of TILE_SIZE spots
+         * @return a number that changes whenever a spot in the block records a session
+         */
+        public int getTileVersion(int tileRow, int tileCol) {
+            return tileVersions.get(tileRow * tileCols + tileCol);
+        }
+
+        /**
+         * Gets the change version of the whole lot.
+         * @return a number that changes whenever any spot records a session
+         */
+        public int getVersion() {
+            return version.get();
+        }
+    }
+
+    /**
+     * Gets the occupancy history of a lot, creating an empty one if none was recorded yet.
+     * @param lot the parking lot
+     * @return the lot's activity
+     */
+    public LotActivity getActivity(ParkingLot lot) {
+        return activities.computeIfAbsent(lot, l -> new LotActivity(l.getRows(), l.getCols()));
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        // Sessions are recorded once they end
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) {
+            return;
+        }
+        getActivity(lot).record(row, col, Math.max(0, Duration.between(startTime, endTime).getSeconds()));
+    }
+}
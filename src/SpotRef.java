@@ -0,0 +1,84 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * An immutable reference to an occupied parking spot, capturing the vehicle and the
+ * start of its occupation at the time the reference was created.
+ * Used as the entry type of indexes maintained from ParkingLotListener events.
+ */
+public class SpotRef {
+    private final ParkingLot lot;
+    private final int row;
+    private final int col;
+    private final String vehicleId;
+    private final LocalDateTime startTime;
+
+    /**
+     * Constructs a new SpotRef.
+     * @param lot the parking lot containing the spot
+     * @param row the row index of the spot
+     * @param col the column index of the spot
+     * @param vehicleId the vehicle occupying the spot
+     * @param startTime the time the occupation started
+     */
+    public SpotRef(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        this.lot = lot;
+        this.row = row;
+        this.col = col;
+        this.vehicleId = vehicleId;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Gets the parking lot containing the spot.
+     * @return the parking lot
+     */
+    public ParkingLot getLot() {
+        return lot;
+    }
+
+    /**
+     * Gets the row index of the spot.
+     * @return the row index
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column index of the spot.
+     * @return the column index
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Gets the vehicle occupying the spot.
+     * @return the vehicle ID
+     */
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    /**
+     * Gets the time the occupation started.
+     * @return the occupation start time
+     */
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Calculates how long the vehicle has been parked so far.
+     * @return the duration since the occupation started
+     */
+    public Duration getOccupationDuration() {
+        return Duration.between(startTime, LocalDateTime.now());
+    }
+
+    @Override
+    public String toString() {
+        return vehicleId + " at " + lot.getName() + " (" + row + "," + col + ")";
+    }
+}
@@ -0,0 +1,35 @@
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Utility class for converting occupation times to and from compact numeric form.
+ * Times are encoded as UTC-based epoch milliseconds so that the same LocalDateTime
+ * round-trips exactly between processes regardless of their time zone.
+ */
+public class TimeUtils {
+
+    /**
+     * Converts a LocalDateTime to epoch milliseconds.
+     * @param time the time to convert, or null
+     * @return the epoch milliseconds, or -1 if time is null
+     */
+    public static long toEpochMillis(LocalDateTime time) {
+        if (time == null) {
+            return -1;
+        }
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Converts epoch milliseconds produced by {@link #toEpochMillis(LocalDateTime)} back to a LocalDateTime.
+     * @param millis the epoch milliseconds, or -1
+     * @return the corresponding LocalDateTime, or null if millis is -1
+     */
+    public static LocalDateTime fromEpochMillis(long millis) {
+        if (millis == -1) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
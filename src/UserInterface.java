@@ -2,29 +2,85 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The main user interface for the Parking Lot Status Check application.
  * Provides a graphical interface for viewing and managing parking lot statuses
  * with interactive spot management and real-time updates.
+ *
+ * All reads and writes of parking lot state happen on a single background model thread.
+ * It captures immutable {@link LotSnapshot}s and hands them to the Event Dispatch Thread,
+ * which only copies them into reused components, so large lots or slow storage never
+ * block painting or input. EDT responsiveness is measured by an {@link EdtLatencyMonitor}
+ * and shown in the status bar. Vehicle searches run on the model thread as part of each
+ * refresh, and matching spots of the displayed lot are highlighted. The overview mode
+ * replaces the grid with a {@link LotDashboard} showing a live tile for every lot, and
+ * large lots can be shown as a {@link HeatmapView} of spot history instead of a grid;
+ * both work from counters and history only, without capturing the lot's spots. Vehicles
+ * parked longer than {@link OverstayMonitor#DEFAULT_LIMIT} are announced in the status bar
+ * by an {@link OverstayMonitor}.
  */
 public class UserInterface extends JFrame {
+    private static final String LOT_VIEW = "lot";
+    private static final String OVERVIEW = "overview";
+    private static final String HEATMAP = "heatmap";
+
     private ParkingLotManager lotManager;
     private NavigationBar navigationBar;
     private JPanel parkingLotPanel;
     private JScrollPane scrollPane;
+    private JPanel centerPanel;
+    private LotDashboard dashboard;
+    private HeatmapView heatmapView;
     private Timer refreshTimer;
+    private JLabel statusLabel;
+    private JLabel latencyLabel;
+    private final ExecutorService modelExecutor;
+    private final EdtLatencyMonitor latencyMonitor = new EdtLatencyMonitor();
+    private final OverstayMonitor overstayMonitor = new OverstayMonitor(OverstayMonitor.DEFAULT_LIMIT);
+    private ParkingLot gridLot;
+    private VehicleQuery searchQuery;
+    private ParkingSpotPanel[][] spotPanels;
+    private boolean refreshInFlight;
+    private boolean refreshPending;
 
     /**
      * Constructs a new UserInterface with sample data and initializes all components.
-     * Sets up the GUI, event handlers, and starts the auto-refresh timer.
+     * Sets up the GUI, event handlers, and starts the auto-refresh timer. Time-of-day
+     * rates of the sample lots are not republished; see {@link #main(String[])}.
      */
     public UserInterface() {
-        this.lotManager = ExampleData.createSampleData();
+        this(ExampleData.createSampleData());
+    }
+
+    /**
+     * Constructs a new UserInterface displaying the given parking lots.
+     * @param lotManager the manager holding the parking lots to display
+     */
+    public UserInterface(ParkingLotManager lotManager) {
+        this.lotManager = lotManager;
+        this.modelExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ui-model");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeComponents();
         setupEventHandlers();
         updateDisplay();
         startRefreshTimer();
+        latencyMonitor.start(250);
+        overstayMonitor.start();
+        // Registering scans the spots of every lot, so it runs on the model thread
+        modelExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                lotManager.addParkingLotListener(overstayMonitor);
+            }
+        });
     }
 
     /**
@@ -52,16 +108,52 @@ public class UserInterface extends JFrame {
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
-        add(scrollPane, BorderLayout.CENTER);
+
+        // Create the overview of all lots, fed by change events of every lot
+        dashboard = new LotDashboard();
+        lotManager.addParkingLotListener(dashboard);
+        JScrollPane dashboardScrollPane = new JScrollPane(dashboard);
+        dashboardScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        dashboardScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        dashboardScrollPane.setBorder(BorderFactory.createEmptyBorder());
+
+        // Create the heatmap of the current lot, fed by the recorded spot history
+        SpotActivityTracker activityTracker = new SpotActivityTracker();
+        lotManager.addParkingLotListener(activityTracker);
+        heatmapView = new HeatmapView(activityTracker);
+
+        // Switch between the lot grid, the heatmap and the overview
+        centerPanel = new JPanel(new CardLayout());
+        centerPanel.add(scrollPane, LOT_VIEW);
+        centerPanel.add(heatmapView, HEATMAP);
+        centerPanel.add(dashboardScrollPane, OVERVIEW);
+        add(centerPanel, BorderLayout.CENTER);
+
+        // Announce overstaying vehicles of every lot in the status bar
+        overstayMonitor.addAlertListener(new OverstayMonitor.AlertListener() {
+            @Override
+            public void vehicleOverstayed(final SpotRef spot) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        statusLabel.setText("Overstay: " + spot + " parked longer than "
+                            + overstayMonitor.getLimit().toHours() + " hours");
+                    }
+                });
+            }
+        });
 
         // Create status bar
-        JPanel statusBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JPanel statusBar = new JPanel(new BorderLayout());
         statusBar.setBackground(GUIUtils.BACKGROUND_DARK);
         statusBar.setBorder(BorderFactory.createEmptyBorder(GUIUtils.STATUS_INSETS.top, GUIUtils.STATUS_INSETS.left, 
                                                            GUIUtils.STATUS_INSETS.bottom, GUIUtils.STATUS_INSETS.right));
         
-        JLabel statusLabel = GUIUtils.createLabel("Click on parking spots to toggle their status", JLabel.LEFT, GUIUtils.FONT_PLAIN_12, Color.BLACK);
-        statusBar.add(statusLabel);
+        statusLabel = GUIUtils.createLabel("Click on parking spots to toggle their status", JLabel.LEFT, GUIUtils.FONT_PLAIN_12, Color.BLACK);
+        statusBar.add(statusLabel, BorderLayout.WEST);
+
+        latencyLabel = GUIUtils.createLabel("", JLabel.RIGHT, GUIUtils.FONT_PLAIN_12, Color.BLACK);
+        statusBar.add(latencyLabel, BorderLayout.EAST);
         
         add(statusBar, BorderLayout.SOUTH);
     }
@@ -77,12 +169,57 @@ public class UserInterface extends JFrame {
             public void actionPerformed(ActionEvent e) {
                 String selectedLotName = navigationBar.getSelectedLotName();
                 if (selectedLotName != null) {
-                    ParkingLot selectedLot = lotManager.getParkingLotByName(selectedLotName);
-                    if (selectedLot != null) {
-                        lotManager.setCurrentLot(selectedLot);
-                        updateDisplay();
-                    }
+                    selectLot(selectedLotName);
+                }
+            }
+        });
+
+        // Overview toggle handler
+        navigationBar.setOverviewListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showSelectedView();
+            }
+        });
+
+        // Lot view selector handler
+        navigationBar.setLotViewListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String lotView = navigationBar.getSelectedLotView();
+                if (NavigationBar.VIEW_DWELL_HEATMAP.equals(lotView)) {
+                    heatmapView.setMetric(HeatmapView.Metric.DWELL_TIME);
+                } else if (NavigationBar.VIEW_TURNOVER_HEATMAP.equals(lotView)) {
+                    heatmapView.setMetric(HeatmapView.Metric.TURNOVER);
                 }
+                showSelectedView();
+                updateDisplay();
+            }
+        });
+
+        // Overview tile click handler, opens the clicked lot
+        dashboard.setTileClickListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                selectLot(e.getActionCommand());
+                navigationBar.setOverviewSelected(false);
+                showSelectedView();
+            }
+        });
+
+        // Search field handler
+        navigationBar.setSearchListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String text = navigationBar.getSearchText();
+                try {
+                    searchQuery = text.isEmpty() ? null : VehicleQuery.parse(text);
+                } catch (IllegalArgumentException ex) {
+                    searchQuery = null;
+                    navigationBar.setSearchResult(ex.getMessage(), null);
+                    return;
+                }
+                updateDisplay();
             }
         });
 
@@ -96,32 +233,188 @@ public class UserInterface extends JFrame {
     }
 
     /**
-     * Updates the entire display to reflect the current parking lot's status.
-     * Refreshes the navigation bar, recreates all parking spot panels, and adds the legend.
+     * Makes the named lot the current lot and refreshes the display.
+     * @param lotName the name of the lot to select
+     */
+    private void selectLot(final String lotName) {
+        modelExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ParkingLot selectedLot = lotManager.getParkingLotByName(lotName);
+                if (selectedLot != null) {
+                    lotManager.setCurrentLot(selectedLot);
+                }
+            }
+        });
+        updateDisplay();
+    }
+
+    /**
+     * Shows the overview of all lots or the current lot's grid or heatmap in the center of
+     * the window, as selected in the navigation bar.
+     */
+    private void showSelectedView() {
+        String card = LOT_VIEW;
+        if (navigationBar.isOverviewSelected()) {
+            card = OVERVIEW;
+        } else if (!isSpotView()) {
+            card = HEATMAP;
+        }
+        ((CardLayout) centerPanel.getLayout()).show(centerPanel, card);
+    }
+
+    /**
+     * Checks whether the current lot is shown as a grid of spot panels.
+     * @return true for the grid, false for a heatmap
+     */
+    private boolean isSpotView() {
+        return NavigationBar.VIEW_SPOTS.equals(navigationBar.getSelectedLotView());
+    }
+
+    /**
+     * Requests the display to be updated to reflect the current parking lot's status.
+     * A snapshot is captured on the model thread and applied on the EDT. Requests made
+     * while a snapshot is being prepared are coalesced into a single follow-up refresh.
+     * Must be called on the EDT.
      */
     private void updateDisplay() {
-        ParkingLot currentLot = lotManager.getCurrentLot();
-        
-        if (currentLot == null) {
+        if (refreshInFlight) {
+            refreshPending = true;
             return;
         }
+        refreshInFlight = true;
+        final VehicleQuery query = searchQuery;
+        final boolean captureSpots = isSpotView();
+        modelExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                LotSnapshot snapshot = null;
+                List<ParkingLot> lots = null;
+                List<SpotRef> matches = null;
+                try {
+                    ParkingLot currentLot = lotManager.getCurrentLot();
+                    if (currentLot != null) {
+                        snapshot = captureSpots ? LotSnapshot.capture(currentLot) : LotSnapshot.captureSummary(currentLot);
+                    }
+                    lots = lotManager.getAllParkingLots();
+                    matches = query != null ? lotManager.searchVehicles(query) : null;
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to prepare display: " + e.getMessage());
+                } finally {
+                    // Always hand back to the EDT, which clears refreshInFlight
+                    final LotSnapshot preparedSnapshot = snapshot;
+                    final List<ParkingLot> preparedLots = lots;
+                    final List<SpotRef> preparedMatches = matches;
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            applySnapshot(preparedSnapshot, preparedLots, preparedMatches);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a prepared snapshot to the display on the EDT.
+     * Existing parking spot panels are updated in place; the grid is only rebuilt when
+     * a different lot is shown. Summary snapshots leave the grid untouched.
+     * @param snapshot the snapshot of the current lot, or null if it could not be prepared
+     * @param lots all parking lots, or null if they could not be read
+     * @param matches the spots matching the active search, or null if no search is active
+     */
+    private void applySnapshot(LotSnapshot snapshot, List<ParkingLot> lots, List<SpotRef> matches) {
+        long start = System.nanoTime();
+        refreshInFlight = false;
+
+        if (snapshot != null) {
+            // Update navigation bar
+            navigationBar.updateParkingLot(snapshot);
+            navigationBar.updateLotSelector(lots);
+            dashboard.setSelectedLot(snapshot.getLot());
+            heatmapView.setLot(snapshot.getLot());
+
+            if (snapshot.hasSpots()) {
+                if (gridLot != snapshot.getLot()) {
+                    rebuildGrid(snapshot);
+                    gridLot = snapshot.getLot();
+                } else {
+                    for (ParkingSpotPanel[] rowPanels : spotPanels) {
+                        for (ParkingSpotPanel spotPanel : rowPanels) {
+                            spotPanel.updateDisplay(snapshot);
+                        }
+                    }
+                }
+            }
+            showSearchResult(snapshot, matches);
+            latencyMonitor.recordWork(start);
+        }
+        latencyLabel.setText(latencyMonitor.getSummary());
+
+        if (refreshPending) {
+            refreshPending = false;
+            updateDisplay();
+        }
+    }
+
+    /**
+     * Highlights the search matches in the displayed grid and summarizes the result.
+     * @param snapshot the displayed snapshot, which only updates highlights if it holds spots
+     * @param matches the spots matching the active search, or null if no search is active
+     */
+    private void showSearchResult(LotSnapshot snapshot, List<SpotRef> matches) {
+        boolean[][] highlighted = snapshot.hasSpots() ? new boolean[snapshot.getRows()][snapshot.getCols()] : null;
+        if (matches == null) {
+            navigationBar.setSearchResult("", null);
+        } else {
+            int matchesHere = 0;
+            List<String> examples = new ArrayList<>();
+            for (SpotRef match : matches) {
+                if (match.getLot() == snapshot.getLot()) {
+                    if (highlighted != null
+                            && GUIUtils.isValidCoordinates(match.getRow(), match.getCol(), snapshot.getRows(), snapshot.getCols())) {
+                        highlighted[match.getRow()][match.getCol()] = true;
+                    }
+                    matchesHere++;
+                }
+                if (examples.size() < 10) {
+                    examples.add(match.toString());
+                }
+            }
+            String toolTip = examples.isEmpty() ? null : "<html>" + String.join("<br>", examples) + "</html>";
+            navigationBar.setSearchResult(matches.size() + " matches, " + matchesHere + " in this lot", toolTip);
+        }
 
-        // Update navigation bar
-        navigationBar.updateParkingLot(currentLot);
-        navigationBar.updateLotSelector(lotManager.getAllParkingLots());
+        if (highlighted == null) {
+            return;
+        }
+        for (int row = 0; row < spotPanels.length; row++) {
+            for (int col = 0; col < spotPanels[row].length; col++) {
+                spotPanels[row][col].setHighlighted(highlighted[row][col]);
+            }
+        }
+    }
 
+    /**
+     * Recreates all parking spot panels for a newly displayed lot and adds the legend.
+     * @param snapshot the snapshot of the lot to display
+     */
+    private void rebuildGrid(LotSnapshot snapshot) {
         // Clear existing parking lot display
         parkingLotPanel.removeAll();
 
         // Create parking spot panels
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = GUIUtils.GRID_INSETS;
+        SpotClickListener clickListener = new SpotClickListener();
+        spotPanels = new ParkingSpotPanel[snapshot.getRows()][snapshot.getCols()];
+
+        for (int row = 0; row < snapshot.getRows(); row++) {
+            for (int col = 0; col < snapshot.getCols(); col++) {
+                ParkingSpotPanel spotPanel = new ParkingSpotPanel(snapshot, row, col, clickListener);
+                spotPanels[row][col] = spotPanel;
 
-        for (int row = 0; row < currentLot.getRows(); row++) {
-            for (int col = 0; col < currentLot.getCols(); col++) {
-                ParkingSpot spot = currentLot.getSpot(row, col);
-                ParkingSpotPanel spotPanel = new ParkingSpotPanel(spot, row, col, new SpotClickListener());
-                
                 gbc.gridx = col;
                 gbc.gridy = row;
                 parkingLotPanel.add(spotPanel, gbc);
@@ -130,8 +423,8 @@ public class UserInterface extends JFrame {
 
         // Add legend
         gbc.gridx = 0;
-        gbc.gridy = currentLot.getRows();
-        gbc.gridwidth = currentLot.getCols();
+        gbc.gridy = snapshot.getRows();
+        gbc.gridwidth = snapshot.getCols();
         gbc.anchor = GridBagConstraints.CENTER;
         
         JPanel legendPanel = createLegendPanel();
@@ -180,6 +473,7 @@ public class UserInterface extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 updateDisplay();
+                dashboard.repaint(); // Rates may change without spot events
             }
         });
         refreshTimer.start();
@@ -193,7 +487,9 @@ public class UserInterface extends JFrame {
         /**
          * Handles spot click events to toggle occupation status.
          * If the spot is occupied, it will be vacated. If available, it will prompt
-         * for a vehicle ID and occupy the spot.
+         * for a vehicle ID and occupy the spot. The change is only made if the spot is
+         * still in the displayed state when the model thread gets to it; otherwise the
+         * user is told and the display is refreshed.
          * @param e the action event containing the spot coordinates
          */
         @Override
@@ -202,36 +498,77 @@ public class UserInterface extends JFrame {
             if (coordinates == null) {
                 return;
             }
-            
-            int row = coordinates[0];
-            int col = coordinates[1];
-            
-            ParkingLot currentLot = lotManager.getCurrentLot();
-            if (currentLot != null) {
-                ParkingSpot spot = currentLot.getSpot(row, col);
-                if (spot != null) {
-                    if (spot.isOccupied()) {
-                        spot.vacate();
-                    } else {
-                        String vehicleId = JOptionPane.showInputDialog(
-                            UserInterface.this, 
-                            "Enter Vehicle ID:", 
-                            "Occupy Spot", 
-                            JOptionPane.QUESTION_MESSAGE
-                        );
-                        if (vehicleId != null && !vehicleId.trim().isEmpty()) {
-                            spot.occupy(vehicleId.trim());
+
+            final int row = coordinates[0];
+            final int col = coordinates[1];
+            if (gridLot == null) {
+                return;
+            }
+
+            // The displayed lot is the one clicked, even if the selection changes meanwhile
+            final ParkingLot lot = gridLot;
+            if (spotPanels[row][col].isOccupied()) {
+                final String shownId = spotPanels[row][col].getVehicleId();
+                modelExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean vacated = false;
+                        // Check and vacate as one change, so a vehicle that replaced the shown one stays
+                        synchronized (lot) {
+                            ParkingSpot spot = lot.getSpot(row, col);
+                            if (spot != null && spot.isOccupied() && shownId.equals(spot.getVehicleId())) {
+                                vacated = lot.vacateSpot(row, col);
+                            }
+                        }
+                        if (!vacated) {
+                            reportConflict("Spot (" + row + "," + col + ") is no longer occupied by " + shownId + ".");
                         }
                     }
-                    updateDisplay();
+                });
+            } else {
+                String vehicleId = JOptionPane.showInputDialog(
+                    UserInterface.this, 
+                    "Enter Vehicle ID:", 
+                    "Occupy Spot", 
+                    JOptionPane.QUESTION_MESSAGE
+                );
+                if (vehicleId == null || vehicleId.trim().isEmpty()) {
+                    return;
                 }
+                final String trimmedId = vehicleId.trim();
+                modelExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!lot.occupySpot(row, col, trimmedId)) {
+                            reportConflict("Spot (" + row + "," + col + ") has been taken meanwhile.");
+                        }
+                    }
+                });
             }
+            updateDisplay();
+        }
+
+        /**
+         * Tells the user that a clicked spot changed before the click was applied and shows
+         * its current state. Called on the model thread.
+         * @param message the explanation to show
+         */
+        private void reportConflict(final String message) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    updateDisplay();
+                    JOptionPane.showMessageDialog(UserInterface.this, message, "Spot Changed",
+                        JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
         }
     }
 
     /**
      * Main method to launch the Parking Lot Status Check application.
-     * Creates and displays the main user interface on the Event Dispatch Thread.
+     * Creates and displays the main user interface on the Event Dispatch Thread, showing
+     * the sample lots priced by a running pricing engine.
      * @param args command line arguments (not used)
      */
     public static void main(String[] args) {
@@ -240,7 +577,10 @@ public class UserInterface extends JFrame {
             public void run() {
                 // Using default look and feel
                 
-                new UserInterface().setVisible(true);
+                DynamicPricingEngine pricing = new DynamicPricingEngine();
+                ParkingLotManager manager = ExampleData.createSampleData(pricing);
+                pricing.start();
+                new UserInterface(manager).setVisible(true);
             }
         });
     }
@@ -0,0 +1,87 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A prefix index over the vehicles parked in the observed lots.
+ * Every occupied spot is stored under its upper-cased vehicle ID in a sorted map, maintained
+ * on occupy and vacate, so all vehicles starting with a prefix form one contiguous range
+ * and a prefix search only visits matching vehicles.
+ *
+ * The index is safe to query from any thread while lots change.
+ */
+public class VehicleIndex implements ParkingLotListener {
+    private static final char SEPARATOR = '\u0000';
+
+    private final NavigableMap<String, SpotRef> index = new ConcurrentSkipListMap<>();
+
+    /**
+     * Finds the occupied spots matching a query.
+     * @param query the query
+     * @return the matching spots, ordered by vehicle ID
+     */
+    public List<SpotRef> search(VehicleQuery query) {
+        String prefix = query.getPrefix();
+        LocalDateTime now = LocalDateTime.now();
+        List<SpotRef> matches = new ArrayList<>();
+        for (SpotRef spot : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (query.matches(spot, now)) {
+                matches.add(spot);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of indexed vehicles.
+     * @return the number of occupied spots in the observed lots
+     */
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void lotAdded(ParkingLot lot) {
+        synchronized (lot) {
+            for (int row = 0; row < lot.getRows(); row++) {
+                for (int col = 0; col < lot.getCols(); col++) {
+                    ParkingSpot spot = lot.getSpot(row, col);
+                    if (spot.isOccupied()) {
+                        index.put(key(spot.getVehicleId(), lot, row, col),
+                            new SpotRef(lot, row, col, spot.getVehicleId(), spot.getOccupationStartTime()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void spotOccupied(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime) {
+        index.put(key(vehicleId, lot, row, col), new SpotRef(lot, row, col, vehicleId, startTime));
+    }
+
+    @Override
+    public void spotVacated(ParkingLot lot, int row, int col, String vehicleId, LocalDateTime startTime, LocalDateTime endTime) {
+        index.remove(key(vehicleId, lot, row, col));
+    }
+
+    /**
+     * Normalizes a vehicle ID or prefix for case-insensitive matching.
+     * @param vehicleId the vehicle ID, may be null
+     * @return the upper-case ID
+     */
+    static String normalize(String vehicleId) {
+        return vehicleId == null ? "" : vehicleId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the key of a spot: the normalized vehicle ID followed by the spot's position,
+     * so vehicles sharing an ID in different spots do not replace each other.
+     */
+    private static String key(String vehicleId, ParkingLot lot, int row, int col) {
+        return normalize(vehicleId) + SEPARATOR + lot.getName() + SEPARATOR + row + ',' + col;
+    }
+}
@@ -0,0 +1,160 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A search over occupied spots: vehicle IDs starting with a prefix, optionally restricted
+ * to one lot and to vehicles parked longer than a minimum duration.
+ * Prefixes and lot names are matched case-insensitively.
+ *
+ * Queries can also be parsed from text such as {@code "AIR"}, {@code ">2h in City Hospital"}
+ * or {@code "CH >1h30m"}, which is what the search box of the GUI accepts.
+ */
+public class VehicleQuery {
+    private static final Pattern LOT_CLAUSE = Pattern.compile("(?i)(?:^|\\s)in\\s+(.+)$");
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+)([dhm])");
+
+    private final String prefix;
+    private String lotName;
+    private Duration minDuration;
+
+    /**
+     * Constructs a new query for vehicle IDs starting with a prefix.
+     * @param prefix the vehicle ID prefix, empty to match every vehicle
+     */
+    public VehicleQuery(String prefix) {
+        this.prefix = VehicleIndex.normalize(prefix);
+    }
+
+    /**
+     * Restricts the query to one parking lot.
+     * @param lotName the name of the lot, or null for all lots
+     * @return this query
+     */
+    public VehicleQuery inLot(String lotName) {
+        this.lotName = lotName;
+        return this;
+    }
+
+    /**
+     * Restricts the query to vehicles parked longer than a duration.
+     * @param minDuration the minimum parking duration, or null for no restriction
+     * @return this query
+     */
+    public VehicleQuery parkedLongerThan(Duration minDuration) {
+        this.minDuration = minDuration;
+        return this;
+    }
+
+    /**
+     * Gets the normalized vehicle ID prefix.
+     * @return the upper-case prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the lot the query is restricted to.
+     * @return the lot name, or null for all lots
+     */
+    public String getLotName() {
+        return lotName;
+    }
+
+    /**
+     * Gets the minimum parking duration.
+     * @return the minimum duration, or null for no restriction
+     */
+    public Duration getMinDuration() {
+        return minDuration;
+    }
+
+    /**
+     * Checks the lot and duration restrictions against an indexed spot. The prefix is
+     * not checked, since the index only hands out spots within the prefix range.
+     * @param spot the occupied spot
+     * @param now the time against which parking durations are measured
+     * @return true if the spot satisfies the restrictions
+     */
+    public boolean matches(SpotRef spot, LocalDateTime now) {
+        if (lotName != null && !spot.getLot().getName().equalsIgnoreCase(lotName)) {
+            return false;
+        }
+        return minDuration == null || Duration.between(spot.getStartTime(), now).compareTo(minDuration) > 0;
+    }
+
+    /**
+     * Parses a query from text. Words starting with '&gt;' are minimum durations made of
+     * days, hours and minutes (e.g. "&gt;2h", "&gt;1h30m"), a trailing "in &lt;lot name&gt;"
+     * restricts the lot, and the remaining words form the vehicle ID prefix.
+     * @param text the query text
+     * @return the parsed query
+     * @throws IllegalArgumentException if a duration cannot be parsed
+     */
+    public static VehicleQuery parse(String text) {
+        String remaining = text.trim();
+        String lotName = null;
+        Matcher lotClause = LOT_CLAUSE.matcher(remaining);
+        if (lotClause.find()) {
+            lotName = lotClause.group(1).trim();
+            remaining = remaining.substring(0, lotClause.start()).trim();
+        }
+
+        Duration minDuration = null;
+        List<String> prefixWords = new ArrayList<>();
+        for (String word : remaining.replace("> ", ">").split("\\s+")) {
+            if (word.startsWith(">")) {
+                minDuration = parseDuration(word.substring(1));
+            } else if (!word.isEmpty()) {
+                prefixWords.add(word);
+            }
+        }
+        return new VehicleQuery(String.join(" ", prefixWords)).inLot(lotName).parkedLongerThan(minDuration);
+    }
+
+    private static Duration parseDuration(String text) {
+        Matcher part = DURATION_PART.matcher(text.toLowerCase(Locale.ROOT));
+        Duration duration = Duration.ZERO;
+        int end = 0;
+        while (part.find() && part.start() == end) {
+            long amount = Long.parseLong(part.group(1));
+            try {
+                switch (part.group(2)) {
+                    case "d":
+                        duration = duration.plusDays(amount);
+                        break;
+                    case "h":
+                        duration = duration.plusHours(amount);
+                        break;
+                    default:
+                        duration = duration.plusMinutes(amount);
+                        break;
+                }
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Invalid duration: " + text, e);
+            }
+            end = part.end();
+        }
+        if (end == 0 || end != text.length()) {
+            throw new IllegalArgumentException("Invalid duration: " + text);
+        }
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(prefix);
+        if (minDuration != null) {
+            text.append(" >").append(minDuration.toMinutes()).append('m');
+        }
+        if (lotName != null) {
+            text.append(" in ").append(lotName);
+        }
+        return text.toString().trim();
+    }
+}